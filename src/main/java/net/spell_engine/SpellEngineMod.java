@@ -20,6 +20,8 @@ import net.spell_engine.config.EnchantmentsConfig;
 import net.spell_engine.config.ServerConfig;
 import net.spell_engine.config.ServerConfigWrapper;
 import net.spell_engine.entity.SpellProjectile;
+import net.spell_engine.entity.SpellProjectileManager;
+import net.spell_engine.internals.ScheduledSpellActions;
 import net.spell_engine.internals.SpellContainerHelper;
 import net.spell_engine.internals.SpellRegistry;
 import net.spell_engine.internals.criteria.EnchantmentSpecificCriteria;
@@ -54,6 +56,8 @@ public class SpellEngineMod {
         enchantmentConfig.refresh();
 
         SpellRegistry.initialize();
+        ScheduledSpellActions.initialize();
+        SpellProjectileManager.initialize();
         ServerNetwork.initializeHandlers();
         Particles.register();
 
@@ -1,5 +1,8 @@
 package net.spell_engine.api.spell;
 
+import net.minecraft.particle.ParticleEffect;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
 import org.jetbrains.annotations.Nullable;
 
 public class ParticleBatch { public ParticleBatch() { }
@@ -37,6 +40,25 @@ public class ParticleBatch { public ParticleBatch() { }
     public float angle = 0;
     public float extent = 0;
 
+    // Resolved references, not serialized
+    @Nullable private transient ParticleEffect particleEffect;
+    private transient boolean linked = false;
+
+    /**
+     * Particle of `particle_id`, resolved on first access (or when the spell registry links its content).
+     * Returns null if the id is not registered, or doesn't refer to a parameterless particle type.
+     */
+    @Nullable
+    public ParticleEffect particleEffect() {
+        if (!linked) {
+            var id = particle_id != null ? Identifier.tryParse(particle_id) : null;
+            var type = id != null ? Registries.PARTICLE_TYPE.get(id) : null;
+            particleEffect = (type instanceof ParticleEffect effect) ? effect : null;
+            linked = true;
+        }
+        return particleEffect;
+    }
+
     public ParticleBatch(String particle_id, Shape shape, Origin origin, Rotation rotation,
                          float count, float min_speed, float max_speed, float angle) {
         this(particle_id, shape, origin, rotation, count, min_speed, max_speed, angle, 0);
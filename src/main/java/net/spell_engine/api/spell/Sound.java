@@ -1,5 +1,10 @@
 package net.spell_engine.api.spell;
 
+import net.minecraft.registry.Registries;
+import net.minecraft.sound.SoundEvent;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Objects;
 import java.util.Random;
 
@@ -62,6 +67,24 @@ public final class Sound {
         return randomness;
     }
 
+    // Resolved references, not serialized
+    @Nullable private transient SoundEvent soundEvent;
+    private transient boolean linked = false;
+
+    /**
+     * Sound event of `id`, resolved on first access (or when the spell registry links its content).
+     * Returns null if the id is not registered.
+     */
+    @Nullable
+    public SoundEvent soundEvent() {
+        if (!linked) {
+            var identifier = id != null ? Identifier.tryParse(id) : null;
+            soundEvent = identifier != null ? Registries.SOUND_EVENT.get(identifier) : null;
+            linked = true;
+        }
+        return soundEvent;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) return true;
@@ -1,5 +1,9 @@
 package net.spell_engine.api.spell;
 
+import net.minecraft.item.Item;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
 import net.spell_engine.api.render.LightEmission;
 import net.spell_power.api.MagicSchool;
 import org.jetbrains.annotations.Nullable;
@@ -110,6 +114,23 @@ public class Spell {
                     public float spell_power_multiplier = 0;
                 }
                 public boolean show_particles = true;
+
+                // Resolved references, not serialized
+                @Nullable private transient net.minecraft.entity.effect.StatusEffect effect;
+                private transient boolean linked = false;
+
+                /**
+                 * Status effect of `effect_id`, resolved on first access (or when the spell registry links its content).
+                 * Returns null if the id is not registered.
+                 */
+                @Nullable
+                public net.minecraft.entity.effect.StatusEffect effect() {
+                    if (!linked) {
+                        effect = resolveStatusEffect(effect_id);
+                        linked = true;
+                    }
+                    return effect;
+                }
             }
             public Fire fire;
             public static class Fire { public Fire() { }
@@ -135,6 +156,50 @@ public class Spell {
         public float cooldown_duration = 0;
         public boolean cooldown_proportional = false;
         public boolean cooldown_haste_affected = true;
+
+        // Resolved references, not serialized
+        @Nullable private transient Item item;
+        @Nullable private transient net.minecraft.entity.effect.StatusEffect effect;
+        private transient boolean linked = false;
+
+        /**
+         * Item of `item_id`, null if not specified or not registered.
+         */
+        @Nullable
+        public Item item() {
+            link();
+            return item;
+        }
+
+        /**
+         * Status effect of `effect_id`, null if not specified or not registered.
+         */
+        @Nullable
+        public net.minecraft.entity.effect.StatusEffect effect() {
+            link();
+            return effect;
+        }
+
+        private void link() {
+            if (linked) {
+                return;
+            }
+            item = null;
+            if (item_id != null && !item_id.isEmpty()) {
+                var id = Identifier.tryParse(item_id);
+                if (id != null && Registries.ITEM.containsId(id)) {
+                    item = Registries.ITEM.get(id);
+                }
+            }
+            effect = resolveStatusEffect(effect_id);
+            linked = true;
+        }
+    }
+
+    @Nullable
+    private static net.minecraft.entity.effect.StatusEffect resolveStatusEffect(@Nullable String effectId) {
+        var id = effectId != null ? Identifier.tryParse(effectId) : null;
+        return id != null ? Registries.STATUS_EFFECT.get(id) : null;
     }
 
     public static class ProjectileData { public ProjectileData() { }
@@ -190,6 +255,52 @@ public class Spell {
                 copy.extra_launch_delay = this.extra_launch_delay;
                 return copy;
             }
+
+            // MARK: NBT Codec
+
+            private static final String NBT_RICOCHET = "ricochet";
+            private static final String NBT_RICOCHET_RANGE = "ricochet_range";
+            private static final String NBT_BOUNCE = "bounce";
+            private static final String NBT_BOUNCE_RICOCHET_SYNC = "bounce_ricochet_sync";
+            private static final String NBT_PIERCE = "pierce";
+            private static final String NBT_CHAIN_REACTION_SIZE = "chain_reaction_size";
+            private static final String NBT_CHAIN_REACTION_TRIGGERS = "chain_reaction_triggers";
+            private static final String NBT_CHAIN_REACTION_INCREMENT = "chain_reaction_increment";
+            private static final String NBT_EXTRA_LAUNCH_COUNT = "extra_launch_count";
+            private static final String NBT_EXTRA_LAUNCH_DELAY = "extra_launch_delay";
+
+            public NbtCompound toNbt() {
+                var nbt = new NbtCompound();
+                nbt.putInt(NBT_RICOCHET, ricochet);
+                nbt.putFloat(NBT_RICOCHET_RANGE, ricochet_range);
+                nbt.putInt(NBT_BOUNCE, bounce);
+                nbt.putBoolean(NBT_BOUNCE_RICOCHET_SYNC, bounce_ricochet_sync);
+                nbt.putInt(NBT_PIERCE, pierce);
+                nbt.putInt(NBT_CHAIN_REACTION_SIZE, chain_reaction_size);
+                nbt.putInt(NBT_CHAIN_REACTION_TRIGGERS, chain_reaction_triggers);
+                nbt.putInt(NBT_CHAIN_REACTION_INCREMENT, chain_reaction_increment);
+                nbt.putInt(NBT_EXTRA_LAUNCH_COUNT, extra_launch_count);
+                nbt.putInt(NBT_EXTRA_LAUNCH_DELAY, extra_launch_delay);
+                return nbt;
+            }
+
+            /**
+             * Missing keys keep their default value.
+             */
+            public static Perks fromNbt(NbtCompound nbt) {
+                var perks = new Perks();
+                if (nbt.contains(NBT_RICOCHET)) { perks.ricochet = nbt.getInt(NBT_RICOCHET); }
+                if (nbt.contains(NBT_RICOCHET_RANGE)) { perks.ricochet_range = nbt.getFloat(NBT_RICOCHET_RANGE); }
+                if (nbt.contains(NBT_BOUNCE)) { perks.bounce = nbt.getInt(NBT_BOUNCE); }
+                if (nbt.contains(NBT_BOUNCE_RICOCHET_SYNC)) { perks.bounce_ricochet_sync = nbt.getBoolean(NBT_BOUNCE_RICOCHET_SYNC); }
+                if (nbt.contains(NBT_PIERCE)) { perks.pierce = nbt.getInt(NBT_PIERCE); }
+                if (nbt.contains(NBT_CHAIN_REACTION_SIZE)) { perks.chain_reaction_size = nbt.getInt(NBT_CHAIN_REACTION_SIZE); }
+                if (nbt.contains(NBT_CHAIN_REACTION_TRIGGERS)) { perks.chain_reaction_triggers = nbt.getInt(NBT_CHAIN_REACTION_TRIGGERS); }
+                if (nbt.contains(NBT_CHAIN_REACTION_INCREMENT)) { perks.chain_reaction_increment = nbt.getInt(NBT_CHAIN_REACTION_INCREMENT); }
+                if (nbt.contains(NBT_EXTRA_LAUNCH_COUNT)) { perks.extra_launch_count = nbt.getInt(NBT_EXTRA_LAUNCH_COUNT); }
+                if (nbt.contains(NBT_EXTRA_LAUNCH_DELAY)) { perks.extra_launch_delay = nbt.getInt(NBT_EXTRA_LAUNCH_DELAY); }
+                return perks;
+            }
         }
 
         public Client client_data;
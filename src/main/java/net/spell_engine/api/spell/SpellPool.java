@@ -79,6 +79,6 @@ public record SpellPool(List<Identifier> spellIds, List<MagicSchool> schools, bo
     public static class SyncFormat { public SyncFormat() { }
         public List<String> spell_ids = List.of();
         public List<String> schools = List.of();
-        boolean craftable;
+        public boolean craftable;
     }
 }
\ No newline at end of file
@@ -1,31 +1,120 @@
 package net.spell_engine.client;
 
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.sound.SoundCategory;
+import net.minecraft.util.Util;
 import net.spell_engine.SpellEngineMod;
 import net.spell_engine.client.animation.AnimatablePlayer;
 import net.spell_engine.internals.casting.SpellCasterEntity;
 import net.spell_engine.internals.SpellRegistry;
+import net.spell_engine.internals.SpellRegistryCodec;
 import net.spell_engine.network.Packets;
 import net.spell_engine.particle.ParticleHelper;
+import net.spell_engine.particle.ParticleSpawnBuffer;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 public class ClientNetwork {
+    /// Digest of the spell registry content last received, base of incoming deltas
+    private static byte[] registryDigest = new byte[0];
+
     public static void initializeHandlers() {
         ClientPlayNetworking.registerGlobalReceiver(Packets.ConfigSync.ID, (client, handler, buf, responseSender) -> {
             var config = Packets.ConfigSync.read(buf);
             SpellEngineMod.config = config;
         });
 
-        ClientPlayNetworking.registerGlobalReceiver(Packets.SpellRegistrySync.ID, (client, handler, buf, responseSender) -> {
-            SpellRegistry.decodeContent(buf);
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            registryDigest = new byte[0];
+            sender.sendPacket(Packets.SpellRegistryRequest.ID,
+                    new Packets.SpellRegistryRequest(SpellRegistryCodec.PROTOCOL_VERSION, false).write());
+            sender.sendPacket(Packets.ParticleQualityReport.ID,
+                    new Packets.ParticleQualityReport(SpellEngineClient.config.particleQuality).write());
+        });
+
+        // Registry content is installed on the client thread, so it doesn't change mid tick or frame.
+        // Received buffers are released after the handler returns, so they are copied when deferred.
+
+        ClientPlayNetworking.registerGlobalReceiver(Packets.SpellRegistryDigest.ID, (client, handler, buf, responseSender) -> {
+            var packet = Packets.SpellRegistryDigest.read(buf);
+            // Reading the cache on an IO worker, the result is applied on the client thread
+            CompletableFuture.supplyAsync(() -> SpellRegistryCache.load(packet.digest()), Util.getIoWorkerExecutor())
+                    .thenAcceptAsync(cached -> {
+                        if (cached != null) {
+                            try {
+                                SpellRegistry.decodeBinaryContent(cached);
+                                registryDigest = packet.digest();
+                                return;
+                            } catch (Exception e) {
+                                System.err.println("Failed to decode cached SpellRegistry, requesting it from the server");
+                                SpellRegistryCache.invalidate(packet.digest());
+                            }
+                        }
+                        responseSender.sendPacket(Packets.SpellRegistryRequest.ID,
+                                new Packets.SpellRegistryRequest(SpellRegistryCodec.PROTOCOL_VERSION, true).write());
+                    }, client);
+        });
+
+        ClientPlayNetworking.registerGlobalReceiver(Packets.SpellRegistrySync.BINARY_ID, (client, handler, buf, responseSender) -> {
+            SpellRegistryCache.save(buf);
+            var digest = SpellRegistryCodec.digest(buf);
+            var content = PacketByteBufs.copy(buf);
+            client.execute(() -> {
+                SpellRegistry.decodeBinaryContent(content);
+                registryDigest = digest;
+            });
+        });
+
+        ClientPlayNetworking.registerGlobalReceiver(Packets.SpellRegistrySync.DELTA_ID, (client, handler, buf, responseSender) -> {
+            var delta = SpellRegistryCodec.decodeDelta(buf);
+            client.execute(() -> {
+                if (!Arrays.equals(delta.baseDigest(), registryDigest)) {
+                    // Out of sync, starting over
+                    responseSender.sendPacket(Packets.SpellRegistryRequest.ID,
+                            new Packets.SpellRegistryRequest(SpellRegistryCodec.PROTOCOL_VERSION, true).write());
+                    return;
+                }
+                SpellRegistry.applyDelta(delta);
+                registryDigest = delta.digest();
+                // Caching the merged content, so the next join with this digest is a cache hit
+                var merged = SpellRegistry.encodeBinaryContent();
+                if (Arrays.equals(SpellRegistryCodec.digest(merged), delta.digest())) {
+                    SpellRegistryCache.save(merged);
+                } else {
+                    System.err.println("Spell Engine - SpellRegistry after delta doesn't match the server digest, not caching it");
+                }
+            });
         });
 
         ClientPlayNetworking.registerGlobalReceiver(Packets.ParticleBatches.ID, (client, handler, buf, responseSender) -> {
             var packet = Packets.ParticleBatches.read(buf);
-            var instructions = ParticleHelper.convertToInstructions(client.world, 0, 0, packet);
+            var particles = ParticleSpawnBuffer.obtain();
+            ParticleHelper.convertToInstructions(client.world, 0, 0, packet, particles);
+            ParticleSpawnBuffer.submit(particles);
+        });
+
+        ClientPlayNetworking.registerGlobalReceiver(Packets.EffectsBundle.ID, (client, handler, buf, responseSender) -> {
+            var packet = Packets.EffectsBundle.read(buf);
+            var particles = ParticleSpawnBuffer.obtain();
+            for (var batches: packet.particles()) {
+                ParticleHelper.convertToInstructions(client.world, 0, 0, batches, particles);
+            }
+            ParticleSpawnBuffer.submit(particles);
             client.execute(() -> {
-                for(var instruction: instructions) {
-                    instruction.perform(client.world);
+                for (var sound: packet.sounds()) {
+                    var soundEvent = Registries.SOUND_EVENT.get(sound.soundRawId());
+                    if (soundEvent == null) {
+                        continue;
+                    }
+                    client.world.playSound(client.player, sound.x(), sound.y(), sound.z(), RegistryEntry.of(soundEvent),
+                            SoundCategory.PLAYERS, sound.volume(), sound.pitch(), sound.seed());
                 }
             });
         });
@@ -43,8 +132,22 @@ public class ClientNetwork {
         ClientPlayNetworking.registerGlobalReceiver(Packets.SpellCooldown.ID, (client, handler, buf, responseSender) -> {
             var packet = Packets.SpellCooldown.read(buf);
             client.execute(() -> {
-                ((SpellCasterEntity)client.player).getCooldownManager().set(packet.spellId(), packet.duration());
+                var cooldownManager = ((SpellCasterEntity)client.player).getCooldownManager();
+                for (var change: packet.changes()) {
+                    cooldownManager.set(change.rawSpellId(), change.duration());
+                }
             });
         });
     }
+
+    /**
+     * Reports the particle quality of the client config to the server (if connected).
+     */
+    public static void sendParticleQuality() {
+        if (MinecraftClient.getInstance().getNetworkHandler() != null
+                && ClientPlayNetworking.canSend(Packets.ParticleQualityReport.ID)) {
+            ClientPlayNetworking.send(Packets.ParticleQualityReport.ID,
+                    new Packets.ParticleQualityReport(SpellEngineClient.config.particleQuality).write());
+        }
+    }
 }
@@ -7,6 +7,7 @@ import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.ingame.HandledScreens;
 import net.minecraft.client.render.block.entity.BlockEntityRendererFactories;
+import net.minecraft.util.ActionResult;
 import net.spell_engine.SpellEngineMod;
 import net.spell_engine.client.animation.AnimationRegistry;
 import net.spell_engine.client.render.SpellBindingBlockEntityRenderer;
@@ -31,7 +32,12 @@ public class SpellEngineClient {
 
     public static void initialize() {
         AutoConfig.register(ClientConfigWrapper.class, PartitioningSerializer.wrap(JanksonConfigSerializer::new));
-        config = AutoConfig.getConfigHolder(ClientConfigWrapper.class).getConfig().client;
+        var configHolder = AutoConfig.getConfigHolder(ClientConfigWrapper.class);
+        config = configHolder.getConfig().client;
+        configHolder.registerSaveListener((holder, wrapper) -> {
+            ClientNetwork.sendParticleQuality();
+            return ActionResult.PASS;
+        });
         hudConfig.refresh();
 
         ClientNetwork.initializeHandlers();
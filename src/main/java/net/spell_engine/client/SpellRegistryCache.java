@@ -0,0 +1,106 @@
+package net.spell_engine.client;
+
+import io.netty.buffer.Unpooled;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.Util;
+import net.spell_engine.SpellEngineMod;
+import net.spell_engine.internals.SpellRegistryCodec;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+/**
+ * On-disk cache of spell registries received from servers, keyed by content digest.
+ */
+public class SpellRegistryCache {
+    private static final int MAX_ENTRIES = 16;
+    private static final String EXTENSION = ".bin";
+
+    private static Path directory() {
+        return FabricLoader.getInstance().getGameDir().resolve(".cache").resolve(SpellEngineMod.ID);
+    }
+
+    private static Path file(byte[] digest) {
+        return directory().resolve(HexFormat.of().formatHex(digest) + EXTENSION);
+    }
+
+    /**
+     * Returns the cached encoded registry matching the digest, or null on a miss.
+     * Blocks on file IO, meant to be called on an IO worker.
+     */
+    @Nullable
+    public static PacketByteBuf load(byte[] digest) {
+        var file = file(digest);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            var bytes = Files.readAllBytes(file);
+            if (!MessageDigest.isEqual(SpellRegistryCodec.digest(bytes), digest)) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            // Touching the file, so pruning keeps recently used entries
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new PacketByteBuf(Unpooled.wrappedBuffer(bytes));
+        } catch (IOException e) {
+            System.err.println("Failed to read cached SpellRegistry: " + file);
+            return null;
+        }
+    }
+
+    /**
+     * Stores an encoded registry (readable bytes of the buffer are left untouched), off the calling thread.
+     */
+    public static void save(PacketByteBuf encoded) {
+        var bytes = new byte[encoded.readableBytes()];
+        encoded.getBytes(encoded.readerIndex(), bytes);
+        Util.getIoWorkerExecutor().execute(() -> {
+            var digest = SpellRegistryCodec.digest(bytes);
+            var file = file(digest);
+            try {
+                Files.createDirectories(file.getParent());
+                Files.write(file, bytes);
+                prune();
+            } catch (IOException e) {
+                System.err.println("Failed to write cached SpellRegistry: " + file);
+            }
+        });
+    }
+
+    public static void invalidate(byte[] digest) {
+        var file = file(digest);
+        Util.getIoWorkerExecutor().execute(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) { }
+        });
+    }
+
+    private static void prune() throws IOException {
+        try (var files = Files.list(directory())) {
+            var entries = files
+                    .filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparingLong(SpellRegistryCache::lastModified).reversed())
+                    .toList();
+            for (int i = MAX_ENTRIES; i < entries.size(); ++i) {
+                Files.deleteIfExists(entries.get(i));
+            }
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -8,7 +8,6 @@ import net.minecraft.client.util.InputUtil;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
-import net.minecraft.registry.Registries;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
@@ -195,8 +194,8 @@ public class SpellTooltip {
         if (config != null) {
             showItemCost = config.spell_cost_item_allowed;
         }
-        if (showItemCost && spell.cost != null && spell.cost.item_id != null && !spell.cost.item_id.isEmpty()) {
-            var item = Registries.ITEM.get(new Identifier(spell.cost.item_id));
+        if (showItemCost && spell.cost != null && spell.cost.item() != null) {
+            var item = spell.cost.item();
             if (item != Items.AIR) {
                 var ammoKey = keyWithPlural("spell.tooltip.ammo", 1); // Add variable ammo count later
                 var itemName = I18n.translate(item.getTranslationKey());
@@ -59,16 +59,15 @@ public class SpellHotbar {
         if (container != null) {
             var spellIds = container.spell_ids;
             for (int i = 0; i < spellIds.size(); i++) {
-                var spellId = new Identifier(spellIds.get(i));
-                var spell = SpellRegistry.getSpell(spellId);
-                if (spell == null) { continue; }
+                var compiled = SpellRegistry.compiled(spellIds.get(i));
+                if (compiled == null) { continue; }
                 WrappedKeybinding keyBinding = null;
                 if (i < allBindings.size()) {
                     keyBinding = allBindings.get(i);
                 }
 
                 // Create slot
-                var slot = new Slot(new SpellInfo(spell, spellId), SpellCast.Mode.from(spell), keyBinding);
+                var slot = new Slot(new SpellInfo(compiled.spell(), compiled.id()), compiled.castMode(), keyBinding);
 
                 // Try to categorize slot based on keybinding
                 if (keyBinding != null) {
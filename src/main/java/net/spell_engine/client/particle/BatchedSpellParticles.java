@@ -0,0 +1,246 @@
+package net.spell_engine.client.particle;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.particle.ParticleTextureSheet;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.GameRenderer;
+import net.minecraft.client.render.Tessellator;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.random.Random;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+
+/**
+ * Optional replacement of `GenericSpellParticle` instances (see `ClientConfig.batchedSpellParticles`).
+ * Particle state is kept in parallel primitive arrays, ticked in bulk,
+ * and all quads are emitted in a single buffer pass per frame.
+ * Behaviour matches `GenericSpellParticle` (no world collision, sprite fixed at spawn).
+ */
+public class BatchedSpellParticles {
+    private static final int INITIAL_CAPACITY = 256;
+    /// Same as the per sheet limit of the vanilla particle manager
+    private static final int MAX_PARTICLES = 16384;
+    private static final float VELOCITY_MULTIPLIER = 0.96F;
+    private static final float GRAVITY_STRENGTH = -0.1F;
+    private static final int FULL_BRIGHTNESS = 255;
+    private static final Random RANDOM = Random.create();
+
+    private static int size = 0;
+    /// x, y, z of each particle
+    private static double[] positions = new double[INITIAL_CAPACITY * 3];
+    private static double[] previousPositions = new double[INITIAL_CAPACITY * 3];
+    private static double[] velocities = new double[INITIAL_CAPACITY * 3];
+    /// r, g, b, a of each particle
+    private static float[] colors = new float[INITIAL_CAPACITY * 4];
+    private static float[] scales = new float[INITIAL_CAPACITY];
+    private static int[] ages = new int[INITIAL_CAPACITY];
+    private static int[] maxAges = new int[INITIAL_CAPACITY];
+    private static Sprite[] sprites = new Sprite[INITIAL_CAPACITY];
+
+    /**
+     * Mirrors the constructor of `GenericSpellParticle` (and its vanilla superclasses).
+     */
+    static void add(double x, double y, double z, double velocityX, double velocityY, double velocityZ,
+                    int maxAge, Sprite sprite, float red, float green, float blue, float alpha) {
+        if (size >= MAX_PARTICLES) {
+            return;
+        }
+        ensureCapacity(size + 1);
+        var i = size;
+        var offset = i * 3;
+
+        // Particle
+        var vx = (0.5 - RANDOM.nextDouble()) + (Math.random() * 2.0 - 1.0) * 0.4;
+        var vy = velocityY + (Math.random() * 2.0 - 1.0) * 0.4;
+        var vz = (0.5 - RANDOM.nextDouble()) + (Math.random() * 2.0 - 1.0) * 0.4;
+        var speed = (Math.random() + Math.random() + 1.0) * 0.15;
+        var length = Math.sqrt(vx * vx + vy * vy + vz * vz);
+        vx = vx / length * speed * 0.4;
+        vy = vy / length * speed * 0.4 + 0.1;
+        vz = vz / length * speed * 0.4;
+        // GenericSpellParticle
+        vy *= 0.2;
+        if (velocityX == 0.0 && velocityZ == 0.0) {
+            vx *= 0.10000000149011612;
+            vz *= 0.10000000149011612;
+        }
+
+        positions[offset] = x;
+        positions[offset + 1] = y;
+        positions[offset + 2] = z;
+        previousPositions[offset] = x;
+        previousPositions[offset + 1] = y;
+        previousPositions[offset + 2] = z;
+        velocities[offset] = vx;
+        velocities[offset + 1] = vy;
+        velocities[offset + 2] = vz;
+        var colorOffset = i * 4;
+        colors[colorOffset] = red;
+        colors[colorOffset + 1] = green;
+        colors[colorOffset + 2] = blue;
+        colors[colorOffset + 3] = alpha;
+        scales[i] = 0.1F * (RANDOM.nextFloat() * 0.5F + 0.5F) * 2.0F * 0.75F;
+        ages[i] = 0;
+        maxAges[i] = maxAge;
+        sprites[i] = sprite;
+        size += 1;
+    }
+
+    public static int size() {
+        return size;
+    }
+
+    public static void clear() {
+        Arrays.fill(sprites, 0, size, null);
+        size = 0;
+    }
+
+    // MARK: Tick
+
+    /**
+     * Advances all particles by one tick, mirrors `Particle.tick` without world collision.
+     */
+    public static void tick() {
+        int alive = 0;
+        for (int i = 0; i < size; ++i) {
+            if (ages[i]++ >= maxAges[i]) {
+                continue; // Dead, gets overwritten by compaction
+            }
+            var offset = i * 3;
+            var x = positions[offset];
+            var y = positions[offset + 1];
+            var z = positions[offset + 2];
+            var vx = velocities[offset];
+            var vy = velocities[offset + 1] - 0.04 * GRAVITY_STRENGTH;
+            var vz = velocities[offset + 2];
+            previousPositions[offset] = x;
+            previousPositions[offset + 1] = y;
+            previousPositions[offset + 2] = z;
+            var newY = y + vy;
+            if (newY == y) { // Ascending particles speed up horizontally when stuck
+                vx *= 1.1;
+                vz *= 1.1;
+            }
+            positions[offset] = x + vx;
+            positions[offset + 1] = newY;
+            positions[offset + 2] = z + vz;
+            velocities[offset] = vx * VELOCITY_MULTIPLIER;
+            velocities[offset + 1] = vy * VELOCITY_MULTIPLIER;
+            velocities[offset + 2] = vz * VELOCITY_MULTIPLIER;
+            if (alive != i) {
+                move(i, alive);
+            }
+            alive += 1;
+        }
+        Arrays.fill(sprites, alive, size, null);
+        size = alive;
+    }
+
+    private static void move(int from, int to) {
+        System.arraycopy(positions, from * 3, positions, to * 3, 3);
+        System.arraycopy(previousPositions, from * 3, previousPositions, to * 3, 3);
+        System.arraycopy(velocities, from * 3, velocities, to * 3, 3);
+        System.arraycopy(colors, from * 4, colors, to * 4, 4);
+        scales[to] = scales[from];
+        ages[to] = ages[from];
+        maxAges[to] = maxAges[from];
+        sprites[to] = sprites[from];
+    }
+
+    // MARK: Render
+
+    private static final Vector3f[] CORNERS = {
+            new Vector3f(-1.0F, -1.0F, 0.0F),
+            new Vector3f(-1.0F, 1.0F, 0.0F),
+            new Vector3f(1.0F, 1.0F, 0.0F),
+            new Vector3f(1.0F, -1.0F, 0.0F)
+    };
+    /// Corners rotated to face the camera, computed once per frame
+    private static final Vector3f[] rotatedCorners = {
+            new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f()
+    };
+
+    /**
+     * Renders all particles in one pass, with the same state as the vanilla translucent particle sheet.
+     */
+    public static void render(WorldRenderContext context) {
+        if (size == 0) {
+            return;
+        }
+        var camera = context.camera();
+        var cameraPos = camera.getPos();
+        var tickDelta = context.tickDelta();
+        var rotation = camera.getRotation();
+        for (int c = 0; c < 4; ++c) {
+            rotatedCorners[c].set(CORNERS[c]).rotate(rotation);
+        }
+
+        var lightmap = context.lightmapTextureManager();
+        lightmap.enable();
+        RenderSystem.enableDepthTest();
+        var modelViewStack = RenderSystem.getModelViewStack();
+        modelViewStack.push();
+        modelViewStack.multiplyPositionMatrix(context.matrixStack().peek().getPositionMatrix());
+        RenderSystem.applyModelViewMatrix();
+        RenderSystem.setShader(GameRenderer::getParticleProgram);
+
+        var tessellator = Tessellator.getInstance();
+        var buffer = tessellator.getBuffer();
+        var sheet = ParticleTextureSheet.PARTICLE_SHEET_TRANSLUCENT;
+        sheet.begin(buffer, MinecraftClient.getInstance().getTextureManager());
+        for (int i = 0; i < size; ++i) {
+            var offset = i * 3;
+            var x = (float) (MathHelper.lerp(tickDelta, previousPositions[offset], positions[offset]) - cameraPos.x);
+            var y = (float) (MathHelper.lerp(tickDelta, previousPositions[offset + 1], positions[offset + 1]) - cameraPos.y);
+            var z = (float) (MathHelper.lerp(tickDelta, previousPositions[offset + 2], positions[offset + 2]) - cameraPos.z);
+            var scale = scales[i];
+            var sprite = sprites[i];
+            var minU = sprite.getMinU();
+            var maxU = sprite.getMaxU();
+            var minV = sprite.getMinV();
+            var maxV = sprite.getMaxV();
+            var colorOffset = i * 4;
+            var red = colors[colorOffset];
+            var green = colors[colorOffset + 1];
+            var blue = colors[colorOffset + 2];
+            var alpha = colors[colorOffset + 3];
+            vertex(buffer, rotatedCorners[0], scale, x, y, z).texture(maxU, maxV).color(red, green, blue, alpha).light(FULL_BRIGHTNESS).next();
+            vertex(buffer, rotatedCorners[1], scale, x, y, z).texture(maxU, minV).color(red, green, blue, alpha).light(FULL_BRIGHTNESS).next();
+            vertex(buffer, rotatedCorners[2], scale, x, y, z).texture(minU, minV).color(red, green, blue, alpha).light(FULL_BRIGHTNESS).next();
+            vertex(buffer, rotatedCorners[3], scale, x, y, z).texture(minU, maxV).color(red, green, blue, alpha).light(FULL_BRIGHTNESS).next();
+        }
+        sheet.draw(tessellator);
+
+        modelViewStack.pop();
+        RenderSystem.applyModelViewMatrix();
+        RenderSystem.depthMask(true);
+        RenderSystem.disableBlend();
+        lightmap.disable();
+    }
+
+    private static VertexConsumer vertex(BufferBuilder buffer, Vector3f corner, float scale, float x, float y, float z) {
+        return buffer.vertex(corner.x() * scale + x, corner.y() * scale + y, corner.z() * scale + z);
+    }
+
+    // MARK: Storage
+
+    private static void ensureCapacity(int capacity) {
+        if (capacity <= scales.length) {
+            return;
+        }
+        var newCapacity = Math.max(capacity, scales.length * 2);
+        positions = Arrays.copyOf(positions, newCapacity * 3);
+        previousPositions = Arrays.copyOf(previousPositions, newCapacity * 3);
+        velocities = Arrays.copyOf(velocities, newCapacity * 3);
+        colors = Arrays.copyOf(colors, newCapacity * 4);
+        scales = Arrays.copyOf(scales, newCapacity);
+        ages = Arrays.copyOf(ages, newCapacity);
+        maxAges = Arrays.copyOf(maxAges, newCapacity);
+        sprites = Arrays.copyOf(sprites, newCapacity);
+    }
+}
@@ -6,6 +6,7 @@ import net.minecraft.client.particle.*;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.particle.DefaultParticleType;
 import net.minecraft.util.math.random.Random;
+import net.spell_engine.client.SpellEngineClient;
 import net.spell_engine.client.util.Color;
 import net.spell_power.api.MagicSchool;
 
@@ -43,6 +44,17 @@ public class GenericSpellParticle extends SpriteBillboardParticle  {
 
     // MARK: Factories
 
+    private static boolean isBatched() {
+        return SpellEngineClient.config.batchedSpellParticles;
+    }
+
+    private static void addBatched(double x, double y, double z, double velocityX, double velocityY, double velocityZ,
+                                   SpriteProvider spriteProvider, float red, float green, float blue, float alpha) {
+        var maxAge = (int)(8.0 / (Math.random() * 0.8 + 0.2));
+        BatchedSpellParticles.add(x, y, z, velocityX, velocityY, velocityZ,
+                maxAge, spriteProvider.getSprite(0, maxAge), red, green, blue, alpha);
+    }
+
     @Environment(EnvType.CLIENT)
     static class SpellFactory implements ParticleFactory<DefaultParticleType> {
         private final SpriteProvider spriteProvider;
@@ -54,8 +66,12 @@ public class GenericSpellParticle extends SpriteBillboardParticle  {
         }
 
         public Particle createParticle(DefaultParticleType defaultParticleType, ClientWorld clientWorld, double d, double e, double f, double g, double h, double i) {
-            var spellParticle = new GenericSpellParticle(clientWorld, d, e, f, g, h, i, this.spriteProvider);
             float j = clientWorld.random.nextFloat() * 0.5F + 0.35F;
+            if (isBatched()) {
+                addBatched(d, e, f, g, h, i, spriteProvider, color.red() * j, color.green() * j, color.blue() * j, 1F);
+                return null;
+            }
+            var spellParticle = new GenericSpellParticle(clientWorld, d, e, f, g, h, i, this.spriteProvider);
             // 0xff66ff
             spellParticle.setColor(color.red() * j, color.green() * j, color.blue() * j);
 //            spellParticle.alpha = 1F;
@@ -89,8 +105,12 @@ public class GenericSpellParticle extends SpriteBillboardParticle  {
         public static Color color = Color.from(MagicSchool.ARCANE.color());
 
         public Particle createParticle(DefaultParticleType defaultParticleType, ClientWorld clientWorld, double d, double e, double f, double g, double h, double i) {
-            var spellParticle = new GenericSpellParticle(clientWorld, d, e, f, g, h, i, this.spriteProvider);
             float j = clientWorld.random.nextFloat() * 0.5F + 0.35F;
+            if (isBatched()) {
+                addBatched(d, e, f, g, h, i, spriteProvider, color.red() * j, color.green() * j, color.blue() * j, 0.5F);
+                return null;
+            }
+            var spellParticle = new GenericSpellParticle(clientWorld, d, e, f, g, h, i, this.spriteProvider);
             // 0xff66ff
             spellParticle.setColor(color.red() * j, color.green() * j, color.blue() * j);
             spellParticle.alpha = 0.5F;
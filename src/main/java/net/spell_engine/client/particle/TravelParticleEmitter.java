@@ -0,0 +1,141 @@
+package net.spell_engine.client.particle;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.world.World;
+import net.spell_engine.api.spell.ParticleBatch;
+import net.spell_engine.client.SpellEngineClient;
+import net.spell_engine.entity.SpellProjectile;
+import net.spell_engine.particle.ParticleHelper;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+/**
+ * Emits the travel particles of a spell projectile on the client.
+ * Emission fades out with the distance to the camera,
+ * and all emitters share a per tick particle budget (see `ClientConfig`).
+ * Emitters are kept on the client side, keyed by the entity id of their projectile.
+ */
+public class TravelParticleEmitter {
+    private final ParticleBatch[] batches;
+
+    private TravelParticleEmitter(ParticleBatch[] batches) {
+        // Batches with unresolved particles are dropped once, instead of being checked every tick
+        var resolved = new ArrayList<ParticleBatch>();
+        if (batches != null) {
+            for (var batch: batches) {
+                if (batch != null && batch.particleEffect() != null) {
+                    resolved.add(batch);
+                }
+            }
+        }
+        this.batches = resolved.toArray(new ParticleBatch[0]);
+    }
+
+    public void emit(Entity entity, float yaw, float pitch) {
+        if (batches.length == 0) {
+            return;
+        }
+        var world = entity.getWorld();
+        var camera = MinecraftClient.getInstance().gameRenderer.getCamera();
+        var multiplier = distanceMultiplier(camera.getPos().squaredDistanceTo(entity.getPos()));
+        if (multiplier <= 0) {
+            return;
+        }
+        for (var batch: batches) {
+            var remaining = remainingBudget(world);
+            if (remaining <= 0) {
+                return;
+            }
+            spent += ParticleHelper.play(world, entity, yaw, pitch, batch, multiplier, remaining);
+        }
+    }
+
+    private static float distanceMultiplier(double squaredDistance) {
+        var config = SpellEngineClient.config;
+        var full = config.projectileParticleFullDistance;
+        var max = config.projectileParticleMaxDistance;
+        if (squaredDistance <= full * full) {
+            return 1F;
+        }
+        if (squaredDistance >= max * max || max <= full) {
+            return 0F;
+        }
+        var distance = Math.sqrt(squaredDistance);
+        return (float) ((max - distance) / (max - full));
+    }
+
+    // MARK: Tracking
+
+    /// Spell projectiles of the client world, keyed by entity id
+    private static final Int2ObjectOpenHashMap<SpellProjectile> projectiles = new Int2ObjectOpenHashMap<>();
+    /// Emitters of the tracked projectiles, created once their spell data is synced
+    private static final Int2ObjectOpenHashMap<TravelParticleEmitter> emitters = new Int2ObjectOpenHashMap<>();
+
+    public static void onEntityLoad(Entity entity) {
+        if (entity instanceof SpellProjectile projectile) {
+            projectiles.put(projectile.getId(), projectile);
+        }
+    }
+
+    public static void onEntityUnload(Entity entity) {
+        if (entity instanceof SpellProjectile) {
+            projectiles.remove(entity.getId());
+            emitters.remove(entity.getId());
+        }
+    }
+
+    /**
+     * Called at the end of each client world tick, after the projectiles moved.
+     */
+    public static void tick(ClientWorld world) {
+        if (projectiles.isEmpty()) {
+            return;
+        }
+        var iterator = projectiles.int2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            var id = entry.getIntKey();
+            var projectile = entry.getValue();
+            if (projectile.isRemoved() || projectile.getWorld() != world) {
+                iterator.remove();
+                emitters.remove(id);
+                continue;
+            }
+            var emitter = emitters.get(id);
+            if (emitter == null) {
+                var renderData = projectile.renderData();
+                if (renderData == null) {
+                    continue; // Not synced yet
+                }
+                emitter = new TravelParticleEmitter(renderData.travel_particles);
+                emitters.put(id, emitter);
+            }
+            emitter.emit(projectile, projectile.getYaw(), projectile.getPitch());
+        }
+    }
+
+    public static void clear() {
+        projectiles.clear();
+        emitters.clear();
+    }
+
+    // MARK: Budget
+
+    private static WeakReference<World> budgetWorld = new WeakReference<>(null);
+    private static long budgetTime = Long.MIN_VALUE;
+    private static int spent = 0;
+
+    private static int remainingBudget(World world) {
+        var time = world.getTime();
+        if (budgetWorld.get() != world || budgetTime != time) {
+            budgetWorld = new WeakReference<>(world);
+            budgetTime = time;
+            spent = 0;
+        }
+        return SpellEngineClient.config.projectileParticleBudget - spent;
+    }
+}
@@ -1,5 +1,6 @@
 package net.spell_engine.client.render;
 
+import net.minecraft.client.render.Frustum;
 import net.minecraft.client.render.RenderLayer;
 import net.minecraft.client.render.VertexConsumerProvider;
 import net.minecraft.client.render.entity.EntityRenderer;
@@ -15,8 +16,11 @@ import net.minecraft.util.math.RotationAxis;
 import net.spell_engine.api.render.CustomLayers;
 import net.spell_engine.api.render.CustomModels;
 import net.spell_engine.api.render.LightEmission;
+import net.spell_engine.api.spell.Spell;
+import net.spell_engine.client.SpellEngineClient;
 import net.spell_engine.entity.SpellProjectile;
 
+import java.util.HashMap;
 import java.util.Map;
 
 
@@ -41,13 +45,39 @@ public class SpellProjectileRenderer<T extends Entity & FlyingItemEntity> extend
         return this.lit ? 15 : super.getBlockLight(entity, pos);
     }
 
+    // MARK: Distance tiers
+
+    /// Number of distant projectile models rendered in the current frame
+    private static int renderedDistantModels = 0;
+
+    /**
+     * Called at the start of each world render.
+     */
+    public static void beginFrame() {
+        renderedDistantModels = 0;
+    }
+
+    @Override
+    public boolean shouldRender(T entity, Frustum frustum, double x, double y, double z) {
+        var maxDistance = SpellEngineClient.config.projectileModelMaxDistance;
+        if (entity.squaredDistanceTo(x, y, z) >= maxDistance * maxDistance) {
+            return false;
+        }
+        return super.shouldRender(entity, frustum, x, y, z);
+    }
+
     public void render(T entity, float yaw, float tickDelta, MatrixStack matrices, VertexConsumerProvider vertexConsumers, int light) {
         if (entity.age >= 2 || !(this.dispatcher.camera.getFocusedEntity().squaredDistanceTo(entity) < 12.25)) {
+            var config = SpellEngineClient.config;
             matrices.push();
             matrices.scale(this.scale, this.scale, this.scale);
             if (entity instanceof SpellProjectile projectile && projectile.renderData() != null) {
                 var renderData = projectile.renderData();
-                switch (renderData.render) {
+                var fullDetailDistance = config.projectileModelFullDetailDistance;
+                var fullDetail = this.dispatcher.getSquaredDistanceToCamera(entity) <= fullDetailDistance * fullDetailDistance;
+                // Distant projectiles face the camera, their orientation and spin is skipped
+                var render = fullDetail ? renderData.render : Spell.ProjectileData.Client.RenderMode.FLAT;
+                switch (render) {
                     case FLAT -> {
                         matrices.multiply(this.dispatcher.getRotation());
                         matrices.multiply(RotationAxis.POSITIVE_Y.rotationDegrees(180.0F));
@@ -65,12 +95,19 @@ public class SpellProjectileRenderer<T extends Entity & FlyingItemEntity> extend
                     }
                 }
 
-                var time = entity.getWorld().getTime();
-                var absoluteTime = (float)time + tickDelta;
-                matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(absoluteTime * renderData.rotate_degrees_per_tick));
+                if (fullDetail) {
+                    var time = entity.getWorld().getTime();
+                    var absoluteTime = (float)time + tickDelta;
+                    matrices.multiply(RotationAxis.POSITIVE_Z.rotationDegrees(absoluteTime * renderData.rotate_degrees_per_tick));
+                }
                 matrices.scale(renderData.scale, renderData.scale, renderData.scale);
-                if (renderData.model_id != null && !renderData.model_id.isEmpty()) {
-                    var modelId = new Identifier(renderData.model_id);
+                // Nearby projectiles always render, distant ones only up to the limit of the frame
+                var withinLimit = fullDetail || renderedDistantModels < config.projectileModelsPerFrame;
+                if (withinLimit && renderData.model_id != null && !renderData.model_id.isEmpty()) {
+                    var modelId = MODEL_IDS.computeIfAbsent(renderData.model_id, Identifier::new);
+                    if (!fullDetail) {
+                        renderedDistantModels += 1;
+                    }
                     CustomModels.render(LAYERS.get(renderData.light_emission), itemRenderer, modelId, matrices, vertexConsumers, light, entity.getId());
                 }
             }
@@ -79,6 +116,9 @@ public class SpellProjectileRenderer<T extends Entity & FlyingItemEntity> extend
         }
     }
 
+    /// Parsed model ids, keyed by their string form
+    private static final Map<String, Identifier> MODEL_IDS = new HashMap<>();
+
     private static final Map<LightEmission, RenderLayer> LAYERS = Map.of(
             LightEmission.NONE, CustomLayers.projectile(LightEmission.NONE),
             LightEmission.GLOW, CustomLayers.projectile(LightEmission.GLOW),
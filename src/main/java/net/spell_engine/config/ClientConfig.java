@@ -4,6 +4,7 @@ import me.shedaniel.autoconfig.ConfigData;
 import me.shedaniel.autoconfig.annotation.Config;
 import me.shedaniel.autoconfig.annotation.ConfigEntry;
 import net.spell_engine.client.input.WrappedKeybinding;
+import net.spell_engine.particle.ParticleQuality;
 import org.jetbrains.annotations.Nullable;
 
 @Config(name = "client")
@@ -49,4 +50,22 @@ public class ClientConfig implements ConfigData {
     public boolean showSpellCastErrors = true;
     @ConfigEntry.Gui.Tooltip
     public boolean shoulderSurfingAdaptiveWhileUse = true;
+    @ConfigEntry.Gui.Tooltip
+    public int projectileParticleFullDistance = 16;
+    @ConfigEntry.Gui.Tooltip
+    public int projectileParticleMaxDistance = 64;
+    @ConfigEntry.Gui.Tooltip
+    public int projectileParticleBudget = 1000;
+    @ConfigEntry.Gui.Tooltip
+    public int projectileModelFullDetailDistance = 48;
+    @ConfigEntry.Gui.Tooltip
+    public int projectileModelMaxDistance = 128;
+    @ConfigEntry.Gui.Tooltip
+    public int projectileModelsPerFrame = 256;
+    @ConfigEntry.Gui.Tooltip
+    public int particleBudgetPerFrame = 2000;
+    @ConfigEntry.Gui.Tooltip
+    public boolean batchedSpellParticles = false;
+    @ConfigEntry.Gui.Tooltip
+    public ParticleQuality particleQuality = ParticleQuality.FULL;
 }
@@ -3,6 +3,7 @@ package net.spell_engine.config;
 import me.shedaniel.autoconfig.ConfigData;
 import me.shedaniel.autoconfig.annotation.Config;
 import me.shedaniel.cloth.clothconfig.shadowed.blue.endless.jankson.Comment;
+import net.spell_engine.entity.SpellProjectileManager;
 import net.spell_engine.utils.TargetHelper;
 
 import java.util.LinkedHashMap;
@@ -23,6 +24,30 @@ public class ServerConfig implements ConfigData { public ServerConfig() {}
     public boolean spell_cost_durability_allowed = true;
     @Comment("If set true, a Fireball doesn't collide with an ally, a healing projectile doesn't collide with an enemy")
     public boolean projectiles_pass_thru_irrelevant_targets = true;
+    @Comment("Maximum number of valid targets (closest first) of a single area effect, checked for line of sight. Bounds the cost of large AoE spells in dense mob farms.")
+    public int area_target_candidate_limit = 100;
+    @Comment("Number of spell projectiles in a world, above which their collision queries share a per tick spatial hash of entities")
+    public int projectile_spatial_hash_threshold = 16;
+    @Comment("Maximum number of live spell projectiles of a single caster. Set `0` for no limit.")
+    public int projectile_budget_per_caster = 64;
+    @Comment("Maximum number of live spell projectiles in a world. Set `0` for no limit.")
+    public int projectile_budget_per_world = 1024;
+    @Comment("Maximum number of spell projectiles spawned in a world per tick. Set `0` for no limit.")
+    public int projectile_spawns_per_tick = 128;
+    @Comment("What happens to projectiles over budget: `DROP` - not spawned, `MERGE` - spell power added to the last projectile of the caster (dropped if there is none), `DEFER` - retried next tick (for up to a second)")
+    public SpellProjectileManager.BudgetPolicy projectile_budget_policy = SpellProjectileManager.BudgetPolicy.MERGE;
+    @Comment("Time budget (in milliseconds) of scheduled spell tasks per world tick, tasks over budget run in the next tick. Set `0` for no limit.")
+    public float scheduler_tick_budget_ms = 5F;
+    @Comment("Delayed spell actions (such as projectiles of a barrage) not performed within this time (in seconds) after becoming due, for example because their caster is not loaded, are discarded")
+    public int scheduled_action_max_lateness_seconds = 30;
+    @Comment("Spell particles are not sent to players further than this distance (in blocks) from their source. Set `0` for no limit.")
+    public float particle_max_distance = 64F;
+    @Comment("Spell particles are sent with full count to players within this distance (in blocks), decreasing linearly beyond")
+    public float particle_full_count_distance = 16F;
+    @Comment("Particle count multiplier at `particle_max_distance`")
+    public float particle_min_count_multiplier = 0.25F;
+    @Comment("Particle count multiplier of batches behind players (out of their view), beyond `particle_full_count_distance`")
+    public float particle_out_of_view_count_multiplier = 0.5F;
     public int spell_book_binding_level_requirement = 3;
     public int spell_book_binding_level_cost = 1;
 
@@ -0,0 +1,61 @@
+package net.spell_engine.entity;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Entity ids already impacted by a projectile.
+ *
+ * Chain reactions fork the history instead of copying it:
+ * ids recorded so far are frozen into a node shared by the parent and all children,
+ * each of them records further ids on its own.
+ */
+public class ImpactHistory {
+    private record Node(IntOpenHashSet ids, @Nullable Node parent) { }
+
+    /// Frozen ids, shared with other histories, never modified
+    @Nullable private Node shared;
+    /// Ids recorded since the last fork, created lazily
+    @Nullable private IntOpenHashSet local;
+
+    public ImpactHistory() {
+        this(null);
+    }
+
+    private ImpactHistory(@Nullable Node shared) {
+        this.shared = shared;
+    }
+
+    public boolean contains(int entityId) {
+        if (local != null && local.contains(entityId)) {
+            return true;
+        }
+        for (var node = shared; node != null; node = node.parent) {
+            if (node.ids.contains(entityId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void add(int entityId) {
+        if (contains(entityId)) {
+            return;
+        }
+        if (local == null) {
+            local = new IntOpenHashSet(4);
+        }
+        local.add(entityId);
+    }
+
+    /**
+     * Returns a history containing the same ids, that can be extended independently from this one.
+     */
+    public ImpactHistory fork() {
+        if (local != null && !local.isEmpty()) {
+            shared = new Node(local, shared);
+            local = null;
+        }
+        return new ImpactHistory(shared);
+    }
+}
@@ -2,6 +2,7 @@ package net.spell_engine.entity;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.LivingEntity;
@@ -15,6 +16,7 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.particle.ParticleTypes;
 import net.minecraft.registry.Registries;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.hit.BlockHitResult;
 import net.minecraft.util.hit.EntityHitResult;
@@ -28,15 +30,14 @@ import net.spell_engine.api.spell.Spell;
 import net.spell_engine.client.render.FlyingSpellEntity;
 import net.spell_engine.internals.SpellHelper;
 import net.spell_engine.internals.SpellRegistry;
-import net.spell_engine.particle.ParticleHelper;
 import net.spell_engine.utils.RecordsWithGson;
 import net.spell_engine.utils.TargetHelper;
 import net.spell_engine.utils.VectorHelper;
+import net.spell_power.api.SpellPower;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Random;
-import java.util.Set;
 import java.util.function.Predicate;
 
 
@@ -48,6 +49,8 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
     private SpellHelper.ImpactContext context;
     private Entity followedTarget;
     private Identifier spellId;
+    /// Resolved at spawn, so the projectile finishes with the same definition even if the registry gets reloaded
+    @Nullable private Spell spell;
     public Vec3d previousVelocity;
 
     public SpellProjectile(EntityType<? extends ProjectileEntity> entityType, World world) {
@@ -65,15 +68,21 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
 
     public SpellProjectile(World world, LivingEntity caster, double x, double y, double z,
                            Behaviour behaviour, Identifier spellId, Entity target, SpellHelper.ImpactContext context, Spell.ProjectileData.Perks mutablePerks) {
+        this(world, caster, x, y, z, behaviour, spellId, SpellRegistry.getSpell(spellId), target, context, mutablePerks);
+    }
+
+    public SpellProjectile(World world, LivingEntity caster, double x, double y, double z,
+                           Behaviour behaviour, Identifier spellId, Spell spell, Entity target, SpellHelper.ImpactContext context, Spell.ProjectileData.Perks mutablePerks) {
         this(world, caster);
         this.setPosition(x, y, z);
         this.spellId = spellId;
+        this.spell = spell;
         this.perks = mutablePerks;
-        var projectileData = projectileData();
-        var gson = new Gson();
         this.context = context;
-        this.getDataTracker().set(CLIENT_DATA, gson.toJson(projectileData));
-        this.getDataTracker().set(BEHAVIOUR, behaviour.toString());
+        // Clients resolve the projectile data from their own copy of the spell registry
+        var rawId = spell != null ? SpellRegistry.compiled(spell).rawId() : 0; // Identity lookup, `0` for spells of an earlier load
+        this.getDataTracker().set(SPELL_ID, rawId > 0 ? rawId : SpellRegistry.rawSpellId(spellId));
+        this.getDataTracker().set(BEHAVIOUR, (byte) behaviour.ordinal());
         setFollowedTarget(target);
     }
 
@@ -97,14 +106,18 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
         if (clientSyncedData != null) {
             return;
         }
-        try {
-            var gson = new Gson();
-            var json = this.getDataTracker().get(CLIENT_DATA);
-            var data = gson.fromJson(json, Spell.ProjectileData.class);
-            clientSyncedData = data;
-        } catch (Exception e) {
-            System.err.println("Spell Projectile - Failed to read clientSyncedData");
+        var rawId = this.getDataTracker().get(SPELL_ID);
+        var compiled = SpellRegistry.compiled(rawId);
+        if (compiled == null) {
+            return; // Not synced yet, or unknown spell
+        }
+        var release = compiled.spell().release;
+        if (release == null || release.target == null || release.target.projectile == null) {
+            return; // Not a projectile spell (anymore), for example after a reload
         }
+        spellId = compiled.id();
+        spell = compiled.spell();
+        clientSyncedData = release.target.projectile;
     }
 
     public void setVelocity(double x, double y, double z, float speed, float spread, float divergence) {
@@ -161,11 +174,12 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
     }
 
     public Behaviour behaviour() {
-        var string = this.getDataTracker().get(BEHAVIOUR);
-        if (string == null || string.isEmpty()) {
+        var ordinal = this.getDataTracker().get(BEHAVIOUR);
+        var values = Behaviour.values();
+        if (ordinal < 0 || ordinal >= values.length) {
             return Behaviour.FLY;
         }
-        return Behaviour.valueOf(string);
+        return values[ordinal];
     }
 
     private boolean skipTravel = false;
@@ -179,8 +193,10 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
         }
         if (!this.getWorld().isClient) {
             // Server side
-            if (getSpell() == null) {
-                System.err.println("Spell Projectile safeguard termination, failed to resolve spell: " + spellId);
+            SpellProjectileManager.of((ServerWorld) getWorld()).onTick(this);
+            var spell = getSpell();
+            if (spell == null || spell.release == null || spell.release.target == null || spell.release.target.projectile == null) {
+                System.err.println("Spell Projectile safeguard termination, failed to resolve projectile spell: " + spellId);
                 this.kill();
                 return;
             }
@@ -213,7 +229,7 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
             super.tick();
 
             if (!getWorld().isClient) {
-                HitResult hitResult = ProjectileUtil.getCollision(this, this::canHit);
+                HitResult hitResult = SpellProjectileManager.of((ServerWorld) getWorld()).getCollision(this, this::canHit);
                 if (hitResult.getType() != HitResult.Type.MISS) {
                     switch (behaviour) {
                         case FLY -> {
@@ -225,7 +241,7 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
                                         && spell != null
                                         && spell.impact.length > 0
                                         && getOwner() instanceof LivingEntity owner) {
-                                    var intents = SpellHelper.intents(spell);
+                                    var intents = SpellRegistry.compiled(spell).intents();
 
                                     boolean intentAllows = false;
                                     for (var intent: intents) {
@@ -266,13 +282,7 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
                     g = 0.8F;
                 }
 
-                if (getWorld().isClient) {
-                    if (projectileData() != null) {
-                        for (var travel_particles : projectileData().client_data.travel_particles) {
-                            ParticleHelper.play(getWorld(), this, getYaw(), getPitch(), travel_particles);
-                        }
-                    }
-                }
+                // Travel particles are emitted by `TravelParticleEmitter` on the client
 
                 this.setPosition(d, e, f);
                 this.distanceTraveled += velocity.length();
@@ -341,7 +351,7 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
     }
 
     // MARK: Perks
-    protected Set<Integer> impactHistory = new HashSet<>();
+    protected ImpactHistory impactHistory = new ImpactHistory();
 
     /**
      * Returns `true` if a new target is found to ricochet to
@@ -358,7 +368,7 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
                 this.perks.ricochet_range,
                 this.perks.ricochet_range,
                 this.perks.ricochet_range);
-        var intents = SpellHelper.intents(this.getSpell());
+        var intents = SpellRegistry.compiled(this.getSpell()).intents();
         Predicate<Entity> intentMatches = (entity) -> {
             boolean intentAllows = false;
             for (var intent: intents) {
@@ -366,7 +376,7 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
             }
             return intentAllows;
         };
-        var otherTargets = this.getWorld().getOtherEntities(this, box, (entity) -> {
+        var otherTargets = SpellProjectileManager.of((ServerWorld) getWorld()).getOtherEntities(this, box, (entity) -> {
             return entity.isAttackable()
                     && entity instanceof LivingEntity // Avoid targeting unliving entities like other projectiles
                     && !impactHistory.contains(entity.getId())
@@ -467,7 +477,7 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
         if (this.perks == null
                 || this.perks.chain_reaction_size <= 0
                 || this.perks.chain_reaction_triggers <= 0
-                || impactHistory.contains(target)) {
+                || impactHistory.contains(target.getId())) {
             return;
         }
         if (getWorld().isClient) {
@@ -487,21 +497,43 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
         for (int i = 0; i < spawnCount; i++) {
             var projectile = new SpellProjectile(getWorld(), (LivingEntity)this.getOwner(),
                     position.getX(), position.getY(), position.getZ(),
-                    this.behaviour(), spellId, null, context, this.perks.copy());
+                    this.behaviour(), spellId, spell, null, context, this.perks.copy());
 
             var angle = launchAngle * i + launchAngleOffset;
             projectile.setVelocity(launchVector.rotateY((float) Math.toRadians(angle)));
             projectile.range = spell.range;
             ProjectileUtil.setRotationFromVelocity(projectile, 0.2F);
-            projectile.impactHistory = new HashSet<>(this.impactHistory);
-            getWorld().spawnEntity(projectile);
+            projectile.impactHistory = this.impactHistory.fork();
+            SpellProjectileManager.of((ServerWorld) getWorld()).spawn(projectile);
         }
     }
 
+    /**
+     * Takes over the spell power of another projectile of the same spell, that was not spawned due to the projectile budget.
+     * Returns `true` if merged.
+     */
+    boolean absorb(SpellProjectile other) {
+        if (getSpell() == null
+                || getSpell() != other.getSpell()
+                || context == null || context.power() == null
+                || other.context == null || other.context.power() == null) {
+            return false;
+        }
+        var power = context.power();
+        this.context = context.power(new SpellPower.Result(power.school(),
+                power.baseValue() + other.context.power().baseValue(),
+                power.criticalChance(), power.criticalDamage()));
+        return true;
+    }
+
     // MARK: Helper
 
     public Spell getSpell() {
-        return SpellRegistry.getSpell(spellId);
+        if (spell == null) {
+            // Loaded from NBT
+            spell = SpellRegistry.getSpell(spellId);
+        }
+        return spell;
     }
 
     public SpellHelper.ImpactContext getImpactContext() {
@@ -531,6 +563,7 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
     private static String NBT_SPELL_ID = "Spell.ID";
     private static String NBT_PERKS = "Perks";
     private static String NBT_IMPACT_CONTEXT = "Impact.Context";
+    private static String NBT_BEHAVIOUR = "Behaviour";
 
     @Override
     protected void onBlockHit(BlockHitResult blockHitResult) {
@@ -543,46 +576,81 @@ public class SpellProjectile extends ProjectileEntity implements FlyingSpellEnti
 
     public void writeCustomDataToNbt(NbtCompound nbt) {
         super.writeCustomDataToNbt(nbt);
-        var gson = new Gson();
-        nbt.putString(NBT_SPELL_ID, gson.toJson(spellId));
-        nbt.putString(NBT_IMPACT_CONTEXT, gson.toJson(context));
-        nbt.putString(NBT_PERKS, gson.toJson(this.perks));
+        if (spellId != null) {
+            nbt.putString(NBT_SPELL_ID, spellId.toString());
+        }
+        nbt.putByte(NBT_BEHAVIOUR, this.getDataTracker().get(BEHAVIOUR));
+        if (context != null) {
+            nbt.put(NBT_IMPACT_CONTEXT, context.toNbt());
+        }
+        if (perks != null) {
+            nbt.put(NBT_PERKS, perks.toNbt());
+        }
     }
 
     public void readCustomDataFromNbt(NbtCompound nbt) {
         super.readCustomDataFromNbt(nbt);
         if (nbt.contains(NBT_SPELL_ID, NbtElement.STRING_TYPE)) {
             try {
-                var gson = new Gson();
-                this.spellId = new Identifier(nbt.getString(NBT_SPELL_ID));
-                var recordReader = new GsonBuilder()
-                        .registerTypeAdapterFactory(new RecordsWithGson.RecordTypeAdapterFactory())
-                        .create();
-                this.context = recordReader.fromJson(nbt.getString(NBT_IMPACT_CONTEXT), SpellHelper.ImpactContext.class);
-                this.perks = gson.fromJson(nbt.getString(NBT_PERKS), Spell.ProjectileData.Perks.class);
+                this.spellId = readSpellId(nbt.getString(NBT_SPELL_ID));
+                // Clients resolve the projectile data by raw id, same as for freshly spawned projectiles
+                this.getDataTracker().set(SPELL_ID, SpellRegistry.rawSpellId(spellId));
+                if (nbt.contains(NBT_BEHAVIOUR, NbtElement.BYTE_TYPE)) {
+                    this.getDataTracker().set(BEHAVIOUR, nbt.getByte(NBT_BEHAVIOUR));
+                }
+                if (nbt.contains(NBT_IMPACT_CONTEXT, NbtElement.COMPOUND_TYPE)) {
+                    this.context = SpellHelper.ImpactContext.fromNbt(nbt.getCompound(NBT_IMPACT_CONTEXT));
+                } else if (nbt.contains(NBT_IMPACT_CONTEXT, NbtElement.STRING_TYPE)) {
+                    this.context = readLegacyContext(nbt.getString(NBT_IMPACT_CONTEXT));
+                }
+                if (nbt.contains(NBT_PERKS, NbtElement.COMPOUND_TYPE)) {
+                    this.perks = Spell.ProjectileData.Perks.fromNbt(nbt.getCompound(NBT_PERKS));
+                } else if (nbt.contains(NBT_PERKS, NbtElement.STRING_TYPE)) {
+                    this.perks = new Gson().fromJson(nbt.getString(NBT_PERKS), Spell.ProjectileData.Perks.class);
+                }
             } catch (Exception e) {
                 System.err.println("SpellProjectile - Failed to read spell data from NBT");
             }
         }
     }
 
+    // MARK: NBT Migration
+
+    // Earlier versions stored Gson JSON strings, these are read once and rewritten in binary form on next save
+
+    @Nullable
+    private static Identifier readSpellId(String string) {
+        if (string.startsWith("{")) {
+            var object = JsonParser.parseString(string).getAsJsonObject();
+            return Identifier.of(object.get("namespace").getAsString(), object.get("path").getAsString());
+        }
+        return Identifier.tryParse(string);
+    }
+
+    private static SpellHelper.ImpactContext readLegacyContext(String json) {
+        var recordReader = new GsonBuilder()
+                .registerTypeAdapterFactory(new RecordsWithGson.RecordTypeAdapterFactory())
+                .create();
+        return recordReader.fromJson(json, SpellHelper.ImpactContext.class);
+    }
+
     // MARK: DataTracker (client-server sync)
 
     @Override
     protected void initDataTracker() {
-        var gson = new Gson();
-        this.getDataTracker().startTracking(CLIENT_DATA, "");
+        this.getDataTracker().startTracking(SPELL_ID, 0);
         this.getDataTracker().startTracking(TARGET_ID, 0);
-        this.getDataTracker().startTracking(BEHAVIOUR, Behaviour.FLY.toString());
+        this.getDataTracker().startTracking(BEHAVIOUR, (byte) Behaviour.FLY.ordinal());
     }
 
-    private static final TrackedData<String> BEHAVIOUR;
-    private static final TrackedData<String> CLIENT_DATA;
+    private static final TrackedData<Byte> BEHAVIOUR;
+    /// Raw id of the spell, `0` stands for none
+    private static final TrackedData<Integer> SPELL_ID;
     private static final TrackedData<Integer> TARGET_ID;
 
     static {
-        CLIENT_DATA = DataTracker.registerData(SpellProjectile.class, TrackedDataHandlerRegistry.STRING);
+        SPELL_ID = DataTracker.registerData(SpellProjectile.class, TrackedDataHandlerRegistry.INTEGER);
         TARGET_ID = DataTracker.registerData(SpellProjectile.class, TrackedDataHandlerRegistry.INTEGER);
-        BEHAVIOUR = DataTracker.registerData(SpellProjectile.class, TrackedDataHandlerRegistry.STRING);
+        BEHAVIOUR = DataTracker.registerData(SpellProjectile.class, TrackedDataHandlerRegistry.BYTE);
     }
 }
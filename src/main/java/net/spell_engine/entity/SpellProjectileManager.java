@@ -0,0 +1,468 @@
+package net.spell_engine.entity;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.hit.EntityHitResult;
+import net.minecraft.util.hit.HitResult;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.RaycastContext;
+import net.spell_engine.SpellEngineMod;
+import net.spell_engine.internals.WorldScheduler;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Shared entity queries of the spell projectiles of a server world.
+ *
+ * Once a world has many projectiles in flight, potential targets are bucketed into a spatial hash
+ * (built once per tick, on the first query), which serves the collision and ricochet queries of
+ * all projectiles, instead of each of them scanning the entity section storage.
+ * Only the chunk sections within reach of the projectiles (as of their previous tick) are hashed,
+ * queries reaching outside of these sections are answered by the world directly.
+ *
+ * Spawning through the manager enforces the projectile budgets of the world.
+ */
+public class SpellProjectileManager {
+    public interface Provider {
+        SpellProjectileManager getSpellProjectileManager();
+    }
+
+    public static SpellProjectileManager of(ServerWorld world) {
+        return ((Provider) world).getSpellProjectileManager();
+    }
+
+    private static final int CELL_SIZE = 4;
+    /// Entities may move after the hash was built (within the same tick), by about their velocity.
+    /// Faster movement than the maximum disables the hash for the tick.
+    private static final double MIN_MOVEMENT_MARGIN = 0.5;
+    private static final double MAX_MOVEMENT_MARGIN = 4;
+    /// Same as the box expansion of `ProjectileUtil.getCollision`
+    private static final double COLLISION_REACH = 1.0;
+    /// Same as `ProjectileUtil.getEntityCollision` default
+    private static final float COLLISION_MARGIN = 0.3F;
+
+    private final ServerWorld world;
+
+    public SpellProjectileManager(ServerWorld world) {
+        this.world = world;
+    }
+
+    // MARK: Metrics
+
+    private static final LongAdder ticks = new LongAdder();
+    private static final LongAdder projectileTicks = new LongAdder();
+    private static final LongAdder queries = new LongAdder();
+    private static final LongAdder hashedQueries = new LongAdder();
+    private static final LongAdder hashBuilds = new LongAdder();
+    private static final LongAdder fallbackQueries = new LongAdder();
+
+    /**
+     * @param fallbackQueries queries that would have been hashed, but reached outside the hashed sections
+     */
+    public record Metrics(long ticks, long projectileTicks, long queries, long hashedQueries, long hashBuilds, long fallbackQueries) {
+        public double projectilesPerTick() {
+            return ticks > 0 ? ((double) projectileTicks) / ticks : 0;
+        }
+        public double queriesPerTick() {
+            return ticks > 0 ? ((double) queries) / ticks : 0;
+        }
+    }
+
+    public static Metrics metrics() {
+        return new Metrics(ticks.sum(), projectileTicks.sum(), queries.sum(), hashedQueries.sum(), hashBuilds.sum(), fallbackQueries.sum());
+    }
+
+    public static void resetMetrics() {
+        ticks.reset();
+        projectileTicks.reset();
+        queries.reset();
+        hashedQueries.reset();
+        hashBuilds.reset();
+        fallbackQueries.reset();
+    }
+
+    private static final LongAdder admitted = new LongAdder();
+    private static final LongAdder dropped = new LongAdder();
+    private static final LongAdder merged = new LongAdder();
+    private static final LongAdder deferred = new LongAdder();
+
+    public record BudgetMetrics(long admitted, long dropped, long merged, long deferred) { }
+
+    public static BudgetMetrics budgetMetrics() {
+        return new BudgetMetrics(admitted.sum(), dropped.sum(), merged.sum(), deferred.sum());
+    }
+
+    public static void resetBudgetMetrics() {
+        admitted.reset();
+        dropped.reset();
+        merged.reset();
+        deferred.reset();
+    }
+
+    public record TickStats(int projectiles, int queries, boolean hashed, int spawns) {
+        public static final TickStats EMPTY = new TickStats(0, 0, false, 0);
+    }
+
+    /**
+     * Stats of the last completed tick of this world.
+     */
+    public TickStats lastTick() {
+        return lastTick;
+    }
+
+    // MARK: Tick state
+
+    private long time = Long.MIN_VALUE;
+    private int tickProjectiles = 0;
+    private int tickQueries = 0;
+    private int tickSpawns = 0;
+    /// Live projectiles per caster entity id, counted as they tick
+    private Int2IntOpenHashMap tickCasterCounts = new Int2IntOpenHashMap();
+    private Int2IntOpenHashMap lastCasterCounts = new Int2IntOpenHashMap();
+    /// Projectiles spawned in the current tick per caster entity id
+    private final Int2IntOpenHashMap casterSpawns = new Int2IntOpenHashMap();
+    /// Last admitted projectile per caster entity id, candidate to merge into
+    private final Int2ObjectOpenHashMap<SpellProjectile> lastSpawned = new Int2ObjectOpenHashMap<>();
+    private TickStats lastTick = TickStats.EMPTY;
+    /// Chunk sections within reach of the projectiles ticked in the current and the previous tick
+    private LongOpenHashSet tickSections = new LongOpenHashSet();
+    private LongOpenHashSet lastSections = new LongOpenHashSet();
+    @Nullable private Long2ObjectOpenHashMap<List<Entity>> cells;
+    /// Chunk sections whose entities are in `cells`
+    private final LongOpenHashSet hashedSections = new LongOpenHashSet();
+    /// Largest half extent of the hashed entities, queries are expanded by this
+    private double maxHalfExtent = 0;
+    /// Derived from the velocity of the hashed entities
+    private double movementMargin = MIN_MOVEMENT_MARGIN;
+
+    private void advance() {
+        var now = world.getTime();
+        if (now == time) {
+            return;
+        }
+        lastTick = (time == now - 1)
+                ? new TickStats(tickProjectiles, tickQueries, cells != null, tickSpawns)
+                : TickStats.EMPTY;
+        var counts = lastCasterCounts;
+        lastCasterCounts = (time == now - 1) ? tickCasterCounts : new Int2IntOpenHashMap();
+        tickCasterCounts = counts;
+        tickCasterCounts.clear();
+        var sections = lastSections;
+        lastSections = (time == now - 1) ? tickSections : new LongOpenHashSet();
+        tickSections = sections;
+        tickSections.clear();
+        casterSpawns.clear();
+        lastSpawned.values().removeIf(Entity::isRemoved);
+        if (tickProjectiles > 0) {
+            ticks.increment();
+        }
+        time = now;
+        tickProjectiles = 0;
+        tickQueries = 0;
+        tickSpawns = 0;
+        cells = null;
+        hashedSections.clear();
+        maxHalfExtent = 0;
+        movementMargin = MIN_MOVEMENT_MARGIN;
+    }
+
+    /**
+     * Called by each projectile once per server tick.
+     */
+    void onTick(SpellProjectile projectile) {
+        advance();
+        tickProjectiles += 1;
+        projectileTicks.increment();
+        var owner = projectile.getOwner();
+        if (owner != null) {
+            tickCasterCounts.addTo(owner.getId(), 1);
+        }
+        // Collision query of this and the next tick, the projectile moves by its velocity in between
+        var velocity = projectile.getVelocity();
+        var reach = projectile.getBoundingBox()
+                .stretch(velocity)
+                .stretch(velocity.multiply(2))
+                .expand(COLLISION_REACH + MAX_MOVEMENT_MARGIN);
+        addSections(tickSections, reach);
+    }
+
+    public static void initialize() {
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            of(world).onEntityLoad(entity);
+        });
+    }
+
+    /**
+     * Entities spawned after the hash was built in the current tick.
+     */
+    private void onEntityLoad(Entity entity) {
+        // The hash of an earlier tick is stale, gets rebuilt on the next query
+        if (cells == null || time != world.getTime() || entity instanceof SpellProjectile) {
+            return;
+        }
+        var center = entity.getBoundingBox().getCenter();
+        if (!hashedSections.contains(sectionKey(center.x, center.y, center.z))) {
+            return;
+        }
+        insert(entity);
+        if (entity instanceof EnderDragonEntity dragon) {
+            for (var part: dragon.getBodyParts()) {
+                insert(part);
+            }
+        }
+    }
+
+    // MARK: Budget
+
+    public enum BudgetPolicy {
+        /// Projectiles over budget are not spawned
+        DROP,
+        /// Projectiles over budget add their spell power to the last projectile of the caster
+        MERGE,
+        /// Projectiles over budget are retried in the next tick
+        DEFER
+    }
+
+    /// Deferred projectiles are dropped after waiting this long
+    private static final int MAX_DEFER_TICKS = 20;
+
+    /**
+     * Spawns the projectile into the world, if it fits the projectile budgets (see `ServerConfig`).
+     * Otherwise the configured `BudgetPolicy` is applied.
+     * @return `true` if the projectile was spawned
+     */
+    public boolean spawn(SpellProjectile projectile) {
+        return spawn(projectile, 0);
+    }
+
+    private boolean spawn(SpellProjectile projectile, int deferredTicks) {
+        advance();
+        var owner = projectile.getOwner();
+        if (deferredTicks > 0 && (owner == null || owner.isRemoved())) {
+            dropped.increment();
+            return false;
+        }
+        if (withinBudget(owner)) {
+            if (!world.spawnEntity(projectile)) {
+                return false;
+            }
+            admitted.increment();
+            tickSpawns += 1;
+            if (owner != null) {
+                casterSpawns.addTo(owner.getId(), 1);
+                lastSpawned.put(owner.getId(), projectile);
+            }
+            return true;
+        }
+        switch (SpellEngineMod.config.projectile_budget_policy) {
+            case MERGE -> {
+                var target = owner != null ? lastSpawned.get(owner.getId()) : null;
+                if (target != null && !target.isRemoved() && target.absorb(projectile)) {
+                    merged.increment();
+                    return false;
+                }
+            }
+            case DEFER -> {
+                if (deferredTicks < MAX_DEFER_TICKS) {
+                    deferred.increment();
+                    ((WorldScheduler) world).schedule(1, () -> spawn(projectile, deferredTicks + 1));
+                    return false;
+                }
+            }
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private boolean withinBudget(@Nullable Entity owner) {
+        var config = SpellEngineMod.config;
+        if (config.projectile_spawns_per_tick > 0
+                && tickSpawns >= config.projectile_spawns_per_tick) {
+            return false;
+        }
+        // Projectiles that already ticked this tick, are counted both in the previous and the current tick
+        if (config.projectile_budget_per_world > 0
+                && Math.max(lastTick.projectiles(), tickProjectiles) + tickSpawns >= config.projectile_budget_per_world) {
+            return false;
+        }
+        if (config.projectile_budget_per_caster > 0 && owner != null) {
+            var id = owner.getId();
+            var live = Math.max(lastCasterCounts.get(id), tickCasterCounts.get(id)) + casterSpawns.get(id);
+            if (live >= config.projectile_budget_per_caster) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // MARK: Queries
+
+    /**
+     * Equivalent of `world.getOtherEntities(except, box, predicate)`.
+     */
+    public List<Entity> getOtherEntities(@Nullable Entity except, Box box, Predicate<Entity> predicate) {
+        advance();
+        tickQueries += 1;
+        queries.increment();
+        // Hashing pays off only with enough projectiles, the projectile count of the previous tick decides
+        if (lastTick.projectiles() < SpellEngineMod.config.projectile_spatial_hash_threshold) {
+            return world.getOtherEntities(except, box, predicate);
+        }
+        if (cells == null) {
+            build();
+        }
+        if (movementMargin > MAX_MOVEMENT_MARGIN || !isHashed(box.expand(movementMargin))) {
+            fallbackQueries.increment();
+            return world.getOtherEntities(except, box, predicate);
+        }
+        hashedQueries.increment();
+        var result = new ArrayList<Entity>();
+        var margin = maxHalfExtent + movementMargin;
+        int minX = cell(box.minX - margin), maxX = cell(box.maxX + margin);
+        int minY = cell(box.minY - margin), maxY = cell(box.maxY + margin);
+        int minZ = cell(box.minZ - margin), maxZ = cell(box.maxZ + margin);
+        for (int x = minX; x <= maxX; ++x) {
+            for (int y = minY; y <= maxY; ++y) {
+                for (int z = minZ; z <= maxZ; ++z) {
+                    var entities = cells.get(BlockPos.asLong(x, y, z));
+                    if (entities == null) {
+                        continue;
+                    }
+                    for (var entity: entities) {
+                        if (entity != except
+                                && !entity.isRemoved()
+                                && entity.getBoundingBox().intersects(box)
+                                && predicate.test(entity)) {
+                            result.add(entity);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Equivalent of `ProjectileUtil.getCollision(projectile, predicate)`.
+     */
+    public HitResult getCollision(Entity projectile, Predicate<Entity> predicate) {
+        var velocity = projectile.getVelocity();
+        var start = projectile.getPos();
+        var end = start.add(velocity);
+        HitResult hitResult = world.raycast(new RaycastContext(start, end, RaycastContext.ShapeType.COLLIDER, RaycastContext.FluidHandling.NONE, projectile));
+        if (hitResult.getType() != HitResult.Type.MISS) {
+            end = hitResult.getPos();
+        }
+        var box = projectile.getBoundingBox().stretch(velocity).expand(1.0);
+        var entityHit = getEntityCollision(projectile, start, end, box, predicate);
+        return entityHit != null ? entityHit : hitResult;
+    }
+
+    @Nullable
+    private EntityHitResult getEntityCollision(Entity projectile, Vec3d start, Vec3d end, Box box, Predicate<Entity> predicate) {
+        double closestDistance = Double.MAX_VALUE;
+        Entity closest = null;
+        for (var entity: getOtherEntities(projectile, box, predicate)) {
+            var hit = entity.getBoundingBox().expand(COLLISION_MARGIN).raycast(start, end);
+            if (hit.isPresent()) {
+                var distance = start.squaredDistanceTo(hit.get());
+                if (distance < closestDistance) {
+                    closest = entity;
+                    closestDistance = distance;
+                }
+            }
+        }
+        return closest != null ? new EntityHitResult(closest) : null;
+    }
+
+    // MARK: Spatial hash
+
+    private void build() {
+        hashBuilds.increment();
+        cells = new Long2ObjectOpenHashMap<>();
+        hashedSections.addAll(lastSections);
+        hashedSections.addAll(tickSections);
+        var seen = new IntOpenHashSet();
+        double maxSpeed = 0;
+        var iterator = hashedSections.iterator();
+        while (iterator.hasNext()) {
+            var section = iterator.nextLong();
+            var x = ChunkSectionPos.unpackX(section) << 4;
+            var y = ChunkSectionPos.unpackY(section) << 4;
+            var z = ChunkSectionPos.unpackZ(section) << 4;
+            var sectionBox = new Box(x, y, z, x + 16, y + 16, z + 16);
+            // Includes the parts of multipart entities
+            for (var entity: world.getOtherEntities(null, sectionBox, candidate -> !(candidate instanceof SpellProjectile) && candidate.isAlive())) {
+                if (seen.add(entity.getId())) {
+                    insert(entity);
+                    maxSpeed = Math.max(maxSpeed, entity.getVelocity().length());
+                }
+            }
+        }
+        movementMargin = Math.max(MIN_MOVEMENT_MARGIN, maxSpeed + MIN_MOVEMENT_MARGIN);
+    }
+
+    private boolean isHashed(Box box) {
+        int minX = section(box.minX), maxX = section(box.maxX);
+        int minY = section(box.minY), maxY = section(box.maxY);
+        int minZ = section(box.minZ), maxZ = section(box.maxZ);
+        for (int x = minX; x <= maxX; ++x) {
+            for (int y = minY; y <= maxY; ++y) {
+                for (int z = minZ; z <= maxZ; ++z) {
+                    if (!hashedSections.contains(ChunkSectionPos.asLong(x, y, z))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void addSections(LongOpenHashSet sections, Box box) {
+        int minX = section(box.minX), maxX = section(box.maxX);
+        int minY = section(box.minY), maxY = section(box.maxY);
+        int minZ = section(box.minZ), maxZ = section(box.maxZ);
+        for (int x = minX; x <= maxX; ++x) {
+            for (int y = minY; y <= maxY; ++y) {
+                for (int z = minZ; z <= maxZ; ++z) {
+                    sections.add(ChunkSectionPos.asLong(x, y, z));
+                }
+            }
+        }
+    }
+
+    private static int section(double coordinate) {
+        return ChunkSectionPos.getSectionCoord(MathHelper.floor(coordinate));
+    }
+
+    private static long sectionKey(double x, double y, double z) {
+        return ChunkSectionPos.asLong(section(x), section(y), section(z));
+    }
+
+    private void insert(Entity entity) {
+        var box = entity.getBoundingBox();
+        maxHalfExtent = Math.max(maxHalfExtent, Math.max(box.getXLength(), Math.max(box.getYLength(), box.getZLength())) * 0.5);
+        var center = box.getCenter();
+        var key = BlockPos.asLong(cell(center.x), cell(center.y), cell(center.z));
+        cells.computeIfAbsent(key, k -> new ArrayList<>()).add(entity);
+    }
+
+    private static int cell(double coordinate) {
+        return MathHelper.floor(coordinate / CELL_SIZE);
+    }
+}
@@ -1,13 +1,17 @@
 package net.spell_engine.fabric.client;
 
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.item.v1.ItemTooltipCallback;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.model.ModelLoadingRegistry;
 import net.fabricmc.fabric.api.client.model.loading.v1.ModelLoadingPlugin;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.particle.v1.ParticleFactoryRegistry;
 import net.fabricmc.fabric.api.client.rendering.v1.EntityRendererRegistry;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.particle.ExplosionLargeParticle;
 import net.spell_engine.SpellEngineMod;
@@ -18,6 +22,7 @@ import net.spell_engine.client.input.Keybindings;
 import net.spell_engine.client.particle.*;
 import net.spell_engine.client.render.CustomModelRegistry;
 import net.spell_engine.client.render.SpellProjectileRenderer;
+import net.spell_engine.particle.ParticleSpawnBuffer;
 import net.spell_engine.particle.Particles;
 
 public class FabricClientMod implements ClientModInitializer {
@@ -34,6 +39,27 @@ public class FabricClientMod implements ClientModInitializer {
         });
         EntityRendererRegistry.register(SpellEngineMod.SPELL_PROJECTILE, (context) ->
                 new SpellProjectileRenderer(context));
+        WorldRenderEvents.START.register(context -> {
+            SpellProjectileRenderer.beginFrame();
+            ParticleSpawnBuffer.spawnPending(context.world(), SpellEngineClient.config.particleBudgetPerFrame);
+        });
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            TravelParticleEmitter.onEntityLoad(entity);
+        });
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            TravelParticleEmitter.onEntityUnload(entity);
+        });
+        ClientTickEvents.END_WORLD_TICK.register(world -> {
+            TravelParticleEmitter.tick(world);
+            BatchedSpellParticles.tick();
+        });
+        WorldRenderEvents.AFTER_TRANSLUCENT.register(context -> {
+            BatchedSpellParticles.render(context);
+        });
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
+            BatchedSpellParticles.clear();
+            TravelParticleEmitter.clear();
+        });
 
         registerParticleAppearances();
     }
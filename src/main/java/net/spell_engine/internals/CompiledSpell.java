@@ -0,0 +1,56 @@
+package net.spell_engine.internals;
+
+import net.minecraft.entity.effect.StatusEffect;
+import net.minecraft.item.Item;
+import net.minecraft.util.Identifier;
+import net.spell_engine.api.spell.ParticleBatch;
+import net.spell_engine.api.spell.Spell;
+import net.spell_engine.internals.casting.SpellCast;
+import net.spell_engine.utils.TargetHelper;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A spell together with data derived from its definition,
+ * computed once per registry load instead of on every cast.
+ * Immutable, as it is shared by the registry snapshot.
+ */
+public record CompiledSpell(@Nullable Identifier id, int rawId, Spell spell,
+                            Set<TargetHelper.Intent> intents,
+                            /// Intent of each impact, indexed as `spell.impact`
+                            List<TargetHelper.Intent> impactIntents,
+                            /// Null for spells without release target
+                            @Nullable TargetHelper.TargetingMode selectionTargetingMode,
+                            @Nullable TargetHelper.TargetingMode impactTargetingMode,
+                            SpellCast.Mode castMode,
+                            boolean channeled,
+                            @Nullable Item costItem,
+                            @Nullable StatusEffect costEffect,
+                            /// See `SpellLinker.particleBatches`
+                            List<ParticleBatch> particleBatches) {
+
+    public static CompiledSpell of(@Nullable Identifier id, int rawId, Spell spell) {
+        var impactIntents = new TargetHelper.Intent[spell.impact.length];
+        var targeted = spell.release != null && spell.release.target != null && spell.release.target.type != null;
+        var intents = EnumSet.noneOf(TargetHelper.Intent.class);
+        for (int i = 0; i < spell.impact.length; ++i) {
+            impactIntents[i] = SpellHelper.intent(spell.impact[i].action);
+            intents.add(impactIntents[i]);
+        }
+
+        return new CompiledSpell(id, rawId, spell,
+                Collections.unmodifiableSet(intents),
+                List.of(impactIntents),
+                targeted ? SpellHelper.selectionTargetingMode(spell) : null,
+                targeted ? SpellHelper.impactTargetingMode(spell) : null,
+                SpellCast.Mode.from(spell),
+                SpellHelper.isChanneled(spell),
+                spell.cost.item(),
+                spell.cost.effect(),
+                List.copyOf(SpellLinker.particleBatches(spell)));
+    }
+}
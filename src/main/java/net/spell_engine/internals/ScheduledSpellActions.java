@@ -0,0 +1,255 @@
+package net.spell_engine.internals;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.PersistentState;
+import net.spell_engine.SpellEngineMod;
+import net.spell_engine.api.spell.SpellInfo;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Delayed spell actions described by data (instead of closures), persisted with the world.
+ * Pending actions are rescheduled after a restart.
+ * Actions becoming due while their caster is not loaded, wait until the caster loads.
+ * Actions not performed within `scheduled_action_max_lateness_seconds` after becoming due are discarded.
+ */
+public class ScheduledSpellActions extends PersistentState {
+    private static final String KEY = SpellEngineMod.ID + "_scheduled_actions";
+
+    public enum Type {
+        SHOOT_PROJECTILE, FALL_PROJECTILE
+    }
+
+    /**
+     * @param rawSpellId resolves the spell without an id lookup, `spellId` is checked against it
+     */
+    public record Action(Type type, Identifier spellId, int rawSpellId, UUID casterId, @Nullable UUID targetId,
+                         SpellHelper.ImpactContext context, long executionTime) {
+        public static Action of(Type type, SpellInfo spellInfo, LivingEntity caster, @Nullable Entity target,
+                                SpellHelper.ImpactContext context, long executionTime) {
+            return new Action(type, spellInfo.id(), SpellRegistry.rawSpellId(spellInfo.id()),
+                    caster.getUuid(), target != null ? target.getUuid() : null,
+                    context, executionTime);
+        }
+
+        @Nullable
+        public CompiledSpell resolve() {
+            var compiled = SpellRegistry.compiled(rawSpellId);
+            if (compiled != null && spellId.equals(compiled.id())) {
+                return compiled;
+            }
+            return SpellRegistry.compiled(spellId); // Raw id is stale
+        }
+
+        // MARK: NBT Codec
+
+        private static final String NBT_KEY_TYPE = "type";
+        private static final String NBT_KEY_SPELL_ID = "spell_id";
+        private static final String NBT_KEY_RAW_SPELL_ID = "raw_spell_id";
+        private static final String NBT_KEY_CASTER = "caster";
+        private static final String NBT_KEY_TARGET = "target";
+        private static final String NBT_KEY_CONTEXT = "context";
+        private static final String NBT_KEY_TIME = "time";
+
+        public NbtCompound toNBT() {
+            var nbt = new NbtCompound();
+            nbt.putString(NBT_KEY_TYPE, type.name());
+            nbt.putString(NBT_KEY_SPELL_ID, spellId.toString());
+            nbt.putInt(NBT_KEY_RAW_SPELL_ID, rawSpellId);
+            nbt.putUuid(NBT_KEY_CASTER, casterId);
+            if (targetId != null) {
+                nbt.putUuid(NBT_KEY_TARGET, targetId);
+            }
+            nbt.put(NBT_KEY_CONTEXT, context.toNbt());
+            nbt.putLong(NBT_KEY_TIME, executionTime);
+            return nbt;
+        }
+
+        @Nullable
+        public static Action fromNBT(NbtCompound nbt) {
+            try {
+                var type = Type.valueOf(nbt.getString(NBT_KEY_TYPE));
+                var spellId = Identifier.tryParse(nbt.getString(NBT_KEY_SPELL_ID));
+                if (spellId == null || !nbt.containsUuid(NBT_KEY_CASTER)) {
+                    return null;
+                }
+                var targetId = nbt.containsUuid(NBT_KEY_TARGET) ? nbt.getUuid(NBT_KEY_TARGET) : null;
+                var context = SpellHelper.ImpactContext.fromNbt(nbt.getCompound(NBT_KEY_CONTEXT));
+                return new Action(type, spellId, nbt.getInt(NBT_KEY_RAW_SPELL_ID), nbt.getUuid(NBT_KEY_CASTER), targetId, context,
+                        nbt.getLong(NBT_KEY_TIME));
+            } catch (Exception e) {
+                System.err.println("Spell Engine - Failed to read scheduled action: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /// Pending actions, this is what gets persisted
+    private final List<Action> actions = new ArrayList<>();
+    /// Due actions waiting for their caster to load, keyed by caster
+    private final Map<UUID, List<Action>> parked = new HashMap<>();
+    /// Whether loaded actions are scheduled
+    private boolean armed = false;
+
+    public ScheduledSpellActions() { }
+
+    /// State of each loaded world, so it is not looked up for every loaded entity
+    private static final Map<ServerWorld, ScheduledSpellActions> loaded = new IdentityHashMap<>();
+
+    public static void initialize() {
+        ServerWorldEvents.LOAD.register((server, world) -> {
+            loaded.put(world, of(world));
+        });
+        ServerWorldEvents.UNLOAD.register((server, world) -> {
+            loaded.remove(world);
+        });
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            var state = loaded.get(world);
+            if (state != null) {
+                state.onEntityLoad(world, entity);
+            }
+        });
+    }
+
+    public static ScheduledSpellActions of(ServerWorld world) {
+        var state = loaded.get(world);
+        if (state != null) {
+            return state;
+        }
+        state = world.getPersistentStateManager()
+                .getOrCreate(ScheduledSpellActions::fromNbt, ScheduledSpellActions::new, KEY);
+        if (!state.armed) {
+            state.armed = true;
+            for (var action: state.actions) {
+                state.arm(world, action);
+            }
+        }
+        return state;
+    }
+
+    public void schedule(ServerWorld world, Action action) {
+        actions.add(action);
+        markDirty();
+        arm(world, action);
+    }
+
+    private void arm(ServerWorld world, Action action) {
+        var delay = Math.max(1, action.executionTime() - world.getTime());
+        ((WorldScheduler) world).schedule((int) Math.min(delay, Integer.MAX_VALUE), () -> {
+            perform(world, action);
+        });
+    }
+
+    private static long maxLateness() {
+        return Math.max(0, SpellEngineMod.config.scheduled_action_max_lateness_seconds) * 20L;
+    }
+
+    private void perform(ServerWorld world, Action action) {
+        var lateness = world.getTime() - action.executionTime();
+        if (lateness > maxLateness()) {
+            discard(action);
+            return;
+        }
+        if (world.getEntity(action.casterId()) == null) {
+            parked.computeIfAbsent(action.casterId(), key -> new ArrayList<>()).add(action);
+            // Discarded if the caster doesn't load in time
+            var remaining = Math.max(1, maxLateness() - lateness + 1);
+            ((WorldScheduler) world).schedule((int) Math.min(remaining, Integer.MAX_VALUE), () -> {
+                var waiting = parked.get(action.casterId());
+                if (waiting != null && waiting.remove(action)) {
+                    if (waiting.isEmpty()) {
+                        parked.remove(action.casterId());
+                    }
+                    discard(action);
+                }
+            });
+            return;
+        }
+        actions.remove(action);
+        markDirty();
+        execute(world, action);
+    }
+
+    private void discard(Action action) {
+        if (actions.remove(action)) {
+            markDirty();
+        }
+    }
+
+    private void onEntityLoad(ServerWorld world, Entity entity) {
+        if (parked.isEmpty()) {
+            return;
+        }
+        var resumed = parked.remove(entity.getUuid());
+        if (resumed == null) {
+            return;
+        }
+        for (var action: resumed) {
+            // Not spawning anything while the entity is being loaded
+            ((WorldScheduler) world).schedule(1, () -> perform(world, action));
+        }
+    }
+
+    private static void execute(ServerWorld world, Action action) {
+        if (!(world.getEntity(action.casterId()) instanceof LivingEntity caster) || !caster.isAlive()) {
+            return;
+        }
+        var compiled = action.resolve();
+        if (compiled == null) {
+            return;
+        }
+        var spellInfo = new SpellInfo(compiled.spell(), compiled.id());
+        var target = action.targetId() != null ? world.getEntity(action.targetId()) : null;
+        switch (action.type()) {
+            case SHOOT_PROJECTILE -> {
+                SpellHelper.shootProjectile(world, caster, target, spellInfo, action.context(), false);
+            }
+            case FALL_PROJECTILE -> {
+                if (target == null) {
+                    return;
+                }
+                SpellHelper.fallProjectile(world, caster, target, spellInfo, action.context(), false);
+            }
+        }
+    }
+
+    // MARK: Persistence
+
+    private static final String NBT_ACTIONS = "actions";
+
+    private static ScheduledSpellActions fromNbt(NbtCompound nbt) {
+        var state = new ScheduledSpellActions();
+        var list = nbt.getList(NBT_ACTIONS, NbtElement.COMPOUND_TYPE);
+        for (int i = 0; i < list.size(); ++i) {
+            var action = Action.fromNBT(list.getCompound(i));
+            if (action != null) {
+                state.actions.add(action);
+            }
+        }
+        return state;
+    }
+
+    @Override
+    public NbtCompound writeNbt(NbtCompound nbt) {
+        var list = new NbtList();
+        for (var action: actions) {
+            list.add(action.toNBT());
+        }
+        nbt.put(NBT_ACTIONS, list);
+        return nbt;
+    }
+}
@@ -1,6 +1,8 @@
 package net.spell_engine.internals;
 
-import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.ints.Int2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -8,11 +10,19 @@ import net.minecraft.util.Identifier;
 import net.minecraft.util.math.MathHelper;
 import net.spell_engine.network.Packets;
 
-import java.util.Iterator;
-import java.util.Map;
+import java.util.ArrayList;
 
+/**
+ * Spell cooldowns of a player, keyed by raw spell id.
+ * Expirations are ordered in a min-heap by end tick, so ticks without expiring cooldowns cost nothing.
+ * Changes of a tick are sent to the client in a single packet, when the manager updates.
+ */
 public class SpellCooldownManager {
-    private final Map<Identifier, Entry> entries = Maps.newHashMap();
+    private final Int2ObjectOpenHashMap<Entry> entries = new Int2ObjectOpenHashMap<>();
+    /// Packed `endTick << 32 | rawId`, entries replaced or removed are skipped when polled
+    private final LongHeapPriorityQueue expirations = new LongHeapPriorityQueue();
+    /// Raw id -> duration (`0` for cleared), not yet sent to the client
+    private final Int2IntLinkedOpenHashMap pendingChanges = new Int2IntLinkedOpenHashMap();
     private int tick;
 
     private final PlayerEntity owner;
@@ -22,11 +32,19 @@ public class SpellCooldownManager {
     }
 
     public boolean isCoolingDown(Identifier spell) {
-        return this.getCooldownProgress(spell, 0.0f) > 0.0f;
+        return isCoolingDown(SpellRegistry.rawSpellId(spell));
+    }
+
+    public boolean isCoolingDown(int rawSpellId) {
+        return this.getCooldownProgress(rawSpellId, 0.0f) > 0.0f;
     }
 
     public float getCooldownProgress(Identifier spell, float tickDelta) {
-        SpellCooldownManager.Entry entry = this.entries.get(spell);
+        return getCooldownProgress(SpellRegistry.rawSpellId(spell), tickDelta);
+    }
+
+    public float getCooldownProgress(int rawSpellId, float tickDelta) {
+        SpellCooldownManager.Entry entry = this.entries.get(rawSpellId);
         if (entry != null) {
             float f = entry.endTick - entry.startTick;
             float g = (float)entry.endTick - ((float)this.tick + tickDelta);
@@ -37,39 +55,69 @@ public class SpellCooldownManager {
 
     public void update() {
         ++this.tick;
-        if (!this.entries.isEmpty()) {
-            Iterator<Map.Entry<Identifier, Entry>> iterator = this.entries.entrySet().iterator();
-            while (iterator.hasNext()) {
-                Map.Entry<Identifier, SpellCooldownManager.Entry> entry = iterator.next();
-                if (entry.getValue().endTick > this.tick) continue;
-                iterator.remove();
-                this.cooldownCleared(entry.getKey());
+        while (!expirations.isEmpty() && (int) (expirations.firstLong() >> 32) <= this.tick) {
+            var expiration = expirations.dequeueLong();
+            var rawId = (int) expiration;
+            var entry = entries.get(rawId);
+            if (entry != null && entry.endTick == (int) (expiration >> 32)) {
+                entries.remove(rawId);
+                this.cooldownCleared(rawId);
             }
         }
+        flush();
     }
 
     public void set(Identifier spell, int duration) {
-        this.entries.put(spell, new SpellCooldownManager.Entry(this.tick, this.tick + duration));
-        this.cooldownSet(spell, duration);
+        set(SpellRegistry.rawSpellId(spell), duration);
+    }
+
+    public void set(int rawSpellId, int duration) {
+        if (rawSpellId <= 0) {
+            return;
+        }
+        if (duration <= 0) {
+            remove(rawSpellId);
+            return;
+        }
+        var entry = new SpellCooldownManager.Entry(this.tick, this.tick + duration);
+        this.entries.put(rawSpellId, entry);
+        this.expirations.enqueue(((long) entry.endTick << 32) | rawSpellId);
+        this.cooldownSet(rawSpellId, duration);
     }
 
     public void remove(Identifier spell) {
-        this.entries.remove(spell);
-        this.cooldownCleared(spell);
+        remove(SpellRegistry.rawSpellId(spell));
     }
 
-    protected void cooldownSet(Identifier spell, int duration) {
-        if (owner instanceof ServerPlayerEntity serverPlayer) {
-            ServerPlayNetworking.send(serverPlayer, Packets.SpellCooldown.ID,
-                    new Packets.SpellCooldown(spell, duration).write());
+    public void remove(int rawSpellId) {
+        if (this.entries.remove(rawSpellId) != null) {
+            this.cooldownCleared(rawSpellId);
         }
     }
 
-    protected void cooldownCleared(Identifier spell) {
-        if (owner instanceof ServerPlayerEntity serverPlayer) {
-            ServerPlayNetworking.send(serverPlayer, Packets.SpellCooldown.ID,
-                    new Packets.SpellCooldown(spell, 0).write());
+    protected void cooldownSet(int rawSpellId, int duration) {
+        if (owner instanceof ServerPlayerEntity) {
+            pendingChanges.put(rawSpellId, duration);
+        }
+    }
+
+    protected void cooldownCleared(int rawSpellId) {
+        if (owner instanceof ServerPlayerEntity) {
+            pendingChanges.put(rawSpellId, 0);
+        }
+    }
+
+    private void flush() {
+        if (pendingChanges.isEmpty() || !(owner instanceof ServerPlayerEntity serverPlayer)) {
+            return;
+        }
+        var changes = new ArrayList<Packets.SpellCooldown.Change>(pendingChanges.size());
+        for (var change: pendingChanges.int2IntEntrySet()) {
+            changes.add(new Packets.SpellCooldown.Change(change.getIntKey(), change.getIntValue()));
         }
+        pendingChanges.clear();
+        ServerPlayNetworking.send(serverPlayer, Packets.SpellCooldown.ID,
+                new Packets.SpellCooldown(changes).write());
     }
 
     record Entry(int startTick, int endTick) { }
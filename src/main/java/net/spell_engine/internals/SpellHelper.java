@@ -9,8 +9,12 @@ import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.effect.StatusEffectInstance;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
-import net.minecraft.registry.Registries;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtDouble;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
@@ -23,6 +27,7 @@ import net.spell_engine.api.spell.SpellEvents;
 import net.spell_engine.api.spell.SpellInfo;
 import net.spell_engine.entity.ConfigurableKnockback;
 import net.spell_engine.entity.SpellProjectile;
+import net.spell_engine.entity.SpellProjectileManager;
 import net.spell_engine.internals.casting.SpellCast;
 import net.spell_engine.internals.casting.SpellCasterEntity;
 import net.spell_engine.particle.ParticleHelper;
@@ -43,12 +48,19 @@ public class SpellHelper {
     }
 
     public static SpellCast.Attempt attemptCasting(PlayerEntity player, ItemStack itemStack, Identifier spellId, boolean checkAmmo) {
+        var compiled = SpellRegistry.compiled(spellId);
+        if (compiled == null) {
+            return SpellCast.Attempt.none();
+        }
+        return attemptCasting(player, itemStack, compiled.rawId(), compiled.spell(), checkAmmo);
+    }
+
+    private static SpellCast.Attempt attemptCasting(PlayerEntity player, ItemStack itemStack, int rawSpellId, @Nullable Spell spell, boolean checkAmmo) {
         var caster = (SpellCasterEntity)player;
-        var spell = SpellRegistry.getSpell(spellId);
         if (spell == null) {
             return SpellCast.Attempt.none();
         }
-        if (caster.getCooldownManager().isCoolingDown(spellId)) {
+        if (caster.getCooldownManager().isCoolingDown(rawSpellId)) {
             return SpellCast.Attempt.failOnCooldown(new SpellCast.Attempt.OnCooldownInfo());
         }
         if (checkAmmo) {
@@ -67,9 +79,8 @@ public class SpellHelper {
         boolean ignoreAmmo = player.getAbilities().creativeMode
                 || EnchantmentHelper.getLevel(Enchantments_SpellEngine.INFINITY, itemStack) > 0
                 || !SpellEngineMod.config.spell_cost_item_allowed;
-        if (!ignoreAmmo && spell.cost.item_id != null && !spell.cost.item_id.isEmpty()) {
-            var id = new Identifier(spell.cost.item_id);
-            var ammoItem = Registries.ITEM.get(id);
+        if (!ignoreAmmo) {
+            var ammoItem = SpellRegistry.compiled(spell).costItem();
             if(ammoItem != null) {
                 ammo = ammoItem.getDefaultStack();
                 satisfied = player.getInventory().contains(ammo);
@@ -141,30 +152,42 @@ public class SpellHelper {
     }
 
     public static void startCasting(PlayerEntity player, Identifier spellId, float speed, int length) {
-        var spell = SpellRegistry.getSpell(spellId);
-        if (spell == null) {
+        startCasting(player, SpellRegistry.compiled(spellId), speed, length);
+    }
+
+    public static void startCasting(PlayerEntity player, @Nullable CompiledSpell compiled, float speed, int length) {
+        if (compiled == null) {
             return;
         }
+        var spell = compiled.spell();
         var itemStack = player.getMainHandStack();
-        var attempt = attemptCasting(player, itemStack, spellId);
+        var attempt = attemptCasting(player, itemStack, compiled.rawId(), spell, true);
         if (!attempt.isSuccess()) {
             return;
         }
         // Allow clients to specify their haste without validation
         // var details = SpellHelper.getCastTimeDetails(player, spell);
-        var process = new SpellCast.Process(spellId, spell, itemStack, speed, length, player.getWorld().getTime());
+        var process = new SpellCast.Process(compiled.id(), spell, itemStack, speed, length, player.getWorld().getTime());
         SpellCastSyncHelper.setCasting(player, process);
         SoundHelper.playSound(player.getWorld(), player, spell.cast.start_sound);
     }
 
     public static void performSpell(World world, PlayerEntity player, Identifier spellId, List<Entity> targets, SpellCast.Action action, float progress) {
-        var spell = SpellRegistry.getSpell(spellId);
-        if (spell == null) {
+        var compiled = SpellRegistry.compiled(spellId);
+        if (compiled == null) {
             return;
         }
+        performSpell(world, player, compiled, targets, action, progress);
+    }
+
+    public static void performSpell(World world, PlayerEntity player, CompiledSpell compiled, List<Entity> targets, SpellCast.Action action, float progress) {
+        var spellId = compiled.id();
+        // The cast in progress keeps the spell it was started with, even if the registry got reloaded since
+        var process = ((SpellCasterEntity)player).getSpellCastProcess();
+        var spell = (process != null && process.id().equals(spellId)) ? process.spell() : compiled.spell();
         var spellInfo = new SpellInfo(spell, spellId);
         var itemStack = player.getMainHandStack();
-        var attempt = attemptCasting(player, itemStack, spellId);
+        var attempt = attemptCasting(player, itemStack, compiled.rawId(), spell, true);
         if (!attempt.isSuccess()) {
             return;
         }
@@ -255,7 +278,7 @@ public class SpellHelper {
                 AnimationHelper.sendAnimation(player, trackingPlayers.get(), SpellCast.Animation.RELEASE, spell.release.animation, castingSpeed);
                 // Consume things
                 // Cooldown
-                imposeCooldown(player, spellId, spell, progress);
+                imposeCooldown(player, compiled.rawId(), spell, progress);
                 // Exhaust
                 player.addExhaustion(spell.cost.exhaust * SpellEngineMod.config.spell_cost_exhaust_multiplier);
                 // Durability
@@ -279,8 +302,8 @@ public class SpellHelper {
                     }
                 }
                 // Status effect
-                if (spell.cost.effect_id != null) {
-                    var effect = Registries.STATUS_EFFECT.get(new Identifier(spell.cost.effect_id));
+                var effect = SpellRegistry.compiled(spell).costEffect();
+                if (effect != null) {
                     player.removeStatusEffect(effect);
                 }
             }
@@ -288,9 +311,13 @@ public class SpellHelper {
     }
 
     public static void imposeCooldown(PlayerEntity player, Identifier spellId, Spell spell, float progress) {
+        imposeCooldown(player, SpellRegistry.rawSpellId(spellId), spell, progress);
+    }
+
+    public static void imposeCooldown(PlayerEntity player, int rawSpellId, Spell spell, float progress) {
         var duration = cooldownToSet(player, spell, progress);
         if (duration > 0) {
-            ((SpellCasterEntity) player).getCooldownManager().set(spellId, Math.round(duration * 20F));
+            ((SpellCasterEntity) player).getCooldownManager().set(rawSpellId, Math.round(duration * 20F));
         }
     }
 
@@ -397,7 +424,7 @@ public class SpellHelper {
 
         var projectile = new SpellProjectile(world, caster,
                 launchPoint.getX(), launchPoint.getY(), launchPoint.getZ(),
-                SpellProjectile.Behaviour.FLY, spellInfo.id(), target, context, mutablePerks);
+                SpellProjectile.Behaviour.FLY, spellInfo.id(), spell, target, context, mutablePerks);
 
         var velocity = projectileData.velocity;
         var divergence = projectileData.divergence;
@@ -415,21 +442,21 @@ public class SpellHelper {
         if (SpellEvents.PROJECTILE_SHOOT.isListened()) {
             SpellEvents.PROJECTILE_SHOOT.invoke((listener) -> listener.onProjectileLaunch(new SpellEvents.ProjectileLaunchEvent(projectile, caster, target, spellInfo, context, initial)));
         }
-        world.spawnEntity(projectile);
+        SpellProjectileManager.of((ServerWorld) world).spawn(projectile);
 
         if (initial && projectile.mutablePerks().extra_launch_count > 0) {
             for (int i = 0; i < projectile.mutablePerks().extra_launch_count; i++) {
                 var ticks = (i + 1) * projectile.mutablePerks().extra_launch_delay;
-                ((WorldScheduler)world).schedule(ticks, () -> {
-                    if (caster == null || !caster.isAlive()) {
-                        return;
-                    }
-                    shootProjectile(world, caster, target, spellInfo, context, false);
-                });
+                scheduleAction((ServerWorld) world, ScheduledSpellActions.Action.of(ScheduledSpellActions.Type.SHOOT_PROJECTILE,
+                        spellInfo, caster, target, context, world.getTime() + ticks));
             }
         }
     }
 
+    private static void scheduleAction(ServerWorld world, ScheduledSpellActions.Action action) {
+        ScheduledSpellActions.of(world).schedule(world, action);
+    }
+
     public static void fallProjectile(World world, LivingEntity caster, Entity target, SpellInfo spellInfo, ImpactContext context) {
         fallProjectile(world, caster, target, spellInfo, context, true);
     }
@@ -448,7 +475,7 @@ public class SpellHelper {
 
         var projectile = new SpellProjectile(world, caster,
                 launchPoint.getX(), launchPoint.getY(), launchPoint.getZ(),
-                SpellProjectile.Behaviour.FALL, spellInfo.id(), target, context, mutablePerks);
+                SpellProjectile.Behaviour.FALL, spellInfo.id(), spell, target, context, mutablePerks);
 
         projectile.setYaw(0);
         projectile.setPitch(90);
@@ -466,17 +493,13 @@ public class SpellHelper {
         if (SpellEvents.PROJECTILE_FALL.isListened()) {
             SpellEvents.PROJECTILE_FALL.invoke((listener) -> listener.onProjectileLaunch(new SpellEvents.ProjectileLaunchEvent(projectile, caster, target, spellInfo, context, initial)));
         }
-        world.spawnEntity(projectile);
+        SpellProjectileManager.of((ServerWorld) world).spawn(projectile);
 
         if (initial && projectile.mutablePerks().extra_launch_count > 0) {
             for (int i = 0; i < projectile.mutablePerks().extra_launch_count; i++) {
                 var ticks = (i + 1) * projectile.mutablePerks().extra_launch_delay;
-                ((WorldScheduler)world).schedule(ticks, () -> {
-                    if (caster == null || !caster.isAlive()) {
-                        return;
-                    }
-                    fallProjectile(world, caster, target, spellInfo, context, false);
-                });
+                scheduleAction((ServerWorld) world, ScheduledSpellActions.Action.of(ScheduledSpellActions.Type.FALL_PROJECTILE,
+                        spellInfo, caster, target, context, world.getTime() + ticks));
             }
         }
     }
@@ -485,16 +508,18 @@ public class SpellHelper {
         var performed = false;
         var trackers = PlayerLookup.tracking(target);
 
+        var impactIntents = SpellRegistry.compiled(spell).impactIntents();
         TargetHelper.Intent selectedIntent = null;
-        for (var impact: spell.impact) {
-            var intent = intent(impact.action);
+        for (int i = 0; i < spell.impact.length; ++i) {
+            var impact = spell.impact[i];
+            var intent = impactIntents.get(i);
             if (!impact.action.apply_to_caster // Only filtering for cases when another entity is actually targeted
                     && (selectedIntent != null && selectedIntent != intent)) {
                 // Filter out mixed intents
                 // So dual intent spells either damage or heal, and not do both
                 continue;
             }
-            var result = performImpact(world, caster, target, spell.school, impact, context, trackers);
+            var result = performImpact(world, caster, target, spell.school, impact, intent, context, trackers);
             performed = performed || result;
             if (result) {
                 selectedIntent = intent;
@@ -532,6 +557,69 @@ public class SpellHelper {
             return position != null;
         }
 
+        // MARK: NBT Codec
+
+        private static final String NBT_CHANNEL = "channel";
+        private static final String NBT_DISTANCE = "distance";
+        private static final String NBT_POSITION = "position";
+        private static final String NBT_POWER = "power";
+        private static final String NBT_TARGETING_MODE = "targeting_mode";
+        private static final String NBT_SCHOOL = "school";
+        private static final String NBT_BASE_VALUE = "base_value";
+        private static final String NBT_CRITICAL_CHANCE = "critical_chance";
+        private static final String NBT_CRITICAL_DAMAGE = "critical_damage";
+
+        public NbtCompound toNbt() {
+            var nbt = new NbtCompound();
+            nbt.putFloat(NBT_CHANNEL, channel);
+            nbt.putFloat(NBT_DISTANCE, distance);
+            if (position != null) {
+                var list = new NbtList();
+                list.add(NbtDouble.of(position.x));
+                list.add(NbtDouble.of(position.y));
+                list.add(NbtDouble.of(position.z));
+                nbt.put(NBT_POSITION, list);
+            }
+            if (power != null) {
+                var powerNbt = new NbtCompound();
+                powerNbt.putString(NBT_SCHOOL, power.school().name());
+                powerNbt.putDouble(NBT_BASE_VALUE, power.baseValue());
+                powerNbt.putDouble(NBT_CRITICAL_CHANCE, power.criticalChance());
+                powerNbt.putDouble(NBT_CRITICAL_DAMAGE, power.criticalDamage());
+                nbt.put(NBT_POWER, powerNbt);
+            }
+            if (targetingMode != null) {
+                nbt.putByte(NBT_TARGETING_MODE, (byte) targetingMode.ordinal());
+            }
+            return nbt;
+        }
+
+        public static ImpactContext fromNbt(NbtCompound nbt) {
+            Vec3d position = null;
+            if (nbt.contains(NBT_POSITION, NbtElement.LIST_TYPE)) {
+                var list = nbt.getList(NBT_POSITION, NbtElement.DOUBLE_TYPE);
+                position = new Vec3d(list.getDouble(0), list.getDouble(1), list.getDouble(2));
+            }
+            SpellPower.Result power = null;
+            if (nbt.contains(NBT_POWER, NbtElement.COMPOUND_TYPE)) {
+                var powerNbt = nbt.getCompound(NBT_POWER);
+                power = new SpellPower.Result(
+                        MagicSchool.valueOf(powerNbt.getString(NBT_SCHOOL)),
+                        powerNbt.getDouble(NBT_BASE_VALUE),
+                        powerNbt.getDouble(NBT_CRITICAL_CHANCE),
+                        powerNbt.getDouble(NBT_CRITICAL_DAMAGE));
+            }
+            var targetingMode = TargetHelper.TargetingMode.DIRECT;
+            if (nbt.contains(NBT_TARGETING_MODE)) {
+                var modes = TargetHelper.TargetingMode.values();
+                var ordinal = nbt.getByte(NBT_TARGETING_MODE);
+                if (ordinal >= 0 && ordinal < modes.length) {
+                    targetingMode = modes[ordinal];
+                }
+            }
+            return new ImpactContext(nbt.getFloat(NBT_CHANNEL), nbt.getFloat(NBT_DISTANCE), position, power, targetingMode);
+        }
+
         public Vec3d knockbackDirection(Vec3d targetPosition) {
             return targetPosition.subtract(position).normalize();
         }
@@ -547,7 +635,8 @@ public class SpellHelper {
 
     private static final float knockbackDefaultStrength = 0.4F;
 
-    private static boolean performImpact(World world, LivingEntity caster, Entity target, MagicSchool school, Spell.Impact impact, ImpactContext context, Collection<ServerPlayerEntity> trackers) {
+    private static boolean performImpact(World world, LivingEntity caster, Entity target, MagicSchool school, Spell.Impact impact, TargetHelper.Intent intent,
+                                         ImpactContext context, Collection<ServerPlayerEntity> trackers) {
         if (!target.isAttackable()) {
             return false;
         }
@@ -566,7 +655,7 @@ public class SpellHelper {
                 target = caster;
             }
 
-            if (!TargetHelper.actionAllowed(context.targetingMode(), intent(impact.action), caster, target)) {
+            if (!TargetHelper.actionAllowed(context.targetingMode(), intent, caster, target)) {
                 return false;
             }
 
@@ -622,8 +711,10 @@ public class SpellHelper {
                 case STATUS_EFFECT -> {
                     var data = impact.action.status_effect;
                     if (target instanceof LivingEntity livingTarget) {
-                        var id = new Identifier(data.effect_id);
-                        var effect = Registries.STATUS_EFFECT.get(id);
+                        var effect = data.effect();
+                        if (effect == null) {
+                            return false;
+                        }
                         if(!underApplyLimit(power, livingTarget, school, data.apply_limit)) {
                             return false;
                         }
@@ -721,10 +812,8 @@ public class SpellHelper {
                 return TargetHelper.Intent.HELPFUL;
             }
             case STATUS_EFFECT -> {
-                var data = action.status_effect;
-                var id = new Identifier(data.effect_id);
-                var effect = Registries.STATUS_EFFECT.get(id);
-                return effect.isBeneficial() ? TargetHelper.Intent.HELPFUL : TargetHelper.Intent.HARMFUL;
+                var effect = action.status_effect.effect();
+                return (effect != null && effect.isBeneficial()) ? TargetHelper.Intent.HELPFUL : TargetHelper.Intent.HARMFUL;
             }
         }
         assert true;
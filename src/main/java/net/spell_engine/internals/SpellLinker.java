@@ -0,0 +1,137 @@
+package net.spell_engine.internals;
+
+import net.spell_engine.api.spell.ParticleBatch;
+import net.spell_engine.api.spell.Sound;
+import net.spell_engine.api.spell.Spell;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds registry references of spell definitions (particles, sounds, status effects, items)
+ * once after loading, so they are not looked up on every cast.
+ * References that cannot be resolved are reported, instead of failing silently mid-combat.
+ */
+public class SpellLinker {
+    /**
+     * Resolves all references of the spell.
+     * @return human-readable description of unresolved references, empty if all resolved
+     */
+    public static List<String> link(Spell spell) {
+        var unresolved = new ArrayList<String>();
+        if (spell.cast != null) {
+            link(spell.cast.particles, "cast.particles", unresolved);
+            link(spell.cast.start_sound, "cast.start_sound", unresolved);
+            link(spell.cast.sound, "cast.sound", unresolved);
+        }
+        var release = spell.release;
+        if (release != null) {
+            link(release.particles, "release.particles", unresolved);
+            link(release.sound, "release.sound", unresolved);
+            var target = release.target;
+            if (target != null) {
+                if (target.beam != null) {
+                    link(target.beam.block_hit_particles, "release.target.beam.block_hit_particles", unresolved);
+                }
+                var projectile = target.projectile;
+                if (projectile != null) {
+                    if (projectile.client_data != null) {
+                        link(projectile.client_data.travel_particles, "release.target.projectile.client_data.travel_particles", unresolved);
+                    }
+                    if (projectile.area_impact != null) {
+                        link(projectile.area_impact.particles, "release.target.projectile.area_impact.particles", unresolved);
+                        link(projectile.area_impact.sound, "release.target.projectile.area_impact.sound", unresolved);
+                    }
+                }
+            }
+        }
+        if (spell.impact != null) {
+            for (int i = 0; i < spell.impact.length; ++i) {
+                var impact = spell.impact[i];
+                var path = "impact[" + i + "]";
+                var statusEffect = impact.action != null ? impact.action.status_effect : null;
+                if (statusEffect != null && statusEffect.effect() == null) {
+                    unresolved.add("status effect `" + statusEffect.effect_id + "` at " + path + ".action.status_effect");
+                }
+                link(impact.particles, path + ".particles", unresolved);
+                link(impact.sound, path + ".sound", unresolved);
+            }
+        }
+        var cost = spell.cost;
+        if (cost != null) {
+            if (cost.item_id != null && !cost.item_id.isEmpty() && cost.item() == null) {
+                unresolved.add("item `" + cost.item_id + "` at cost.item_id");
+            }
+            if (cost.effect_id != null && cost.effect() == null) {
+                unresolved.add("status effect `" + cost.effect_id + "` at cost.effect_id");
+            }
+        }
+        return unresolved;
+    }
+
+    /**
+     * All particle batches of the spell, in a stable order.
+     * Both sides derive the same order from the synced spell definition,
+     * so batches can be referenced by their index (see `SpellSnapshot.particleBatch`).
+     */
+    public static List<ParticleBatch> particleBatches(Spell spell) {
+        var batches = new ArrayList<ParticleBatch>();
+        if (spell.cast != null) {
+            collect(spell.cast.particles, batches);
+        }
+        var release = spell.release;
+        if (release != null) {
+            collect(release.particles, batches);
+            var target = release.target;
+            if (target != null) {
+                if (target.beam != null) {
+                    collect(target.beam.block_hit_particles, batches);
+                }
+                var projectile = target.projectile;
+                if (projectile != null) {
+                    if (projectile.client_data != null) {
+                        collect(projectile.client_data.travel_particles, batches);
+                    }
+                    if (projectile.area_impact != null) {
+                        collect(projectile.area_impact.particles, batches);
+                    }
+                }
+            }
+        }
+        if (spell.impact != null) {
+            for (var impact: spell.impact) {
+                collect(impact.particles, batches);
+            }
+        }
+        return batches;
+    }
+
+    private static void collect(ParticleBatch[] source, List<ParticleBatch> batches) {
+        if (source == null) {
+            return;
+        }
+        for (var batch: source) {
+            if (batch != null) {
+                batches.add(batch);
+            }
+        }
+    }
+
+    private static void link(ParticleBatch[] batches, String path, List<String> unresolved) {
+        if (batches == null) {
+            return;
+        }
+        for (int i = 0; i < batches.length; ++i) {
+            var batch = batches[i];
+            if (batch != null && batch.particleEffect() == null) {
+                unresolved.add("particle `" + batch.particle_id + "` at " + path + "[" + i + "]");
+            }
+        }
+    }
+
+    private static void link(Sound sound, String path, List<String> unresolved) {
+        if (sound != null && sound.soundEvent() == null) {
+            unresolved.add("sound `" + sound.id() + "` at " + path);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package net.spell_engine.internals;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.PersistentState;
+import net.spell_engine.SpellEngineMod;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Raw id allocator for spells, persisted with the world.
+ * Once a spell received a raw id, it keeps it across restarts and reloads,
+ * ids of removed spells are not reused. New spells are allocated in identifier order.
+ */
+public class SpellRawIds extends PersistentState {
+    private static final String KEY = SpellEngineMod.ID + "_spell_raw_ids";
+    private static final String NBT_IDS = "ids";
+    private static final String NBT_NEXT = "next";
+
+    private final Map<Identifier, Integer> rawIds = new HashMap<>();
+    private int next = 1; // `0` stands for no spell
+
+    public SpellRawIds() { }
+
+    public static SpellRawIds of(MinecraftServer server) {
+        return server.getOverworld().getPersistentStateManager()
+                .getOrCreate(SpellRawIds::fromNbt, SpellRawIds::new, KEY);
+    }
+
+    /**
+     * Allocates raw ids for the given spells that don't have one yet.
+     * @param sortedIds expected to be sorted, so allocation is deterministic
+     */
+    public synchronized void allocate(Collection<Identifier> sortedIds) {
+        boolean changed = false;
+        for (var id: sortedIds) {
+            if (!rawIds.containsKey(id)) {
+                rawIds.put(id, next++);
+                changed = true;
+            }
+        }
+        if (changed) {
+            markDirty();
+        }
+    }
+
+    public synchronized int rawId(Identifier id) {
+        var rawId = rawIds.get(id);
+        return rawId != null ? rawId : 0;
+    }
+
+    // MARK: Persistence
+
+    private static SpellRawIds fromNbt(NbtCompound nbt) {
+        var state = new SpellRawIds();
+        var ids = nbt.getCompound(NBT_IDS);
+        var max = 0;
+        for (var key: ids.getKeys()) {
+            if (!ids.contains(key, NbtElement.INT_TYPE)) {
+                continue;
+            }
+            var id = Identifier.tryParse(key);
+            var rawId = ids.getInt(key);
+            if (id != null && rawId > 0) {
+                state.rawIds.put(id, rawId);
+                max = Math.max(max, rawId);
+            }
+        }
+        state.next = Math.max(nbt.getInt(NBT_NEXT), max + 1);
+        return state;
+    }
+
+    @Override
+    public synchronized NbtCompound writeNbt(NbtCompound nbt) {
+        var ids = new NbtCompound();
+        for (var entry: rawIds.entrySet()) {
+            ids.putInt(entry.getKey().toString(), entry.getValue());
+        }
+        nbt.put(NBT_IDS, ids);
+        nbt.putInt(NBT_NEXT, next);
+        return nbt;
+    }
+}
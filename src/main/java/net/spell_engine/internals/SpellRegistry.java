@@ -1,20 +1,23 @@
 package net.spell_engine.internals;
 
-import com.google.gson.Gson;
-import com.google.gson.stream.JsonReader;
+import com.google.common.collect.MapMaker;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.resource.ResourceManager;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
 import net.spell_engine.api.spell.Spell;
 import net.spell_engine.api.spell.SpellContainer;
 import net.spell_engine.api.spell.SpellPool;
 import net.spell_engine.utils.WeaponCompatibility;
 import net.spell_power.api.MagicSchool;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.InputStreamReader;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class SpellRegistry {
@@ -26,128 +29,211 @@ public class SpellRegistry {
             this.rawId = rawId;
         }
     }
-    private static final Map<Identifier, SpellEntry> spells = new HashMap<>();
-    private static final Map<Identifier, SpellPool> pools = new HashMap<>();
+
+    private static volatile SpellSnapshot content = SpellSnapshot.EMPTY;
     public static final Map<Identifier, SpellContainer> book_containers = new HashMap<>();
     public static final Map<Identifier, SpellContainer> containers = new HashMap<>();
-    private static final Map<MagicSchool, Integer> spellCount = new HashMap<>();
 
     public static Map<Identifier, SpellEntry> all() {
-        return spells;
+        return content.spells();
+    }
+
+    public static SpellSnapshot snapshot() {
+        return content;
     }
 
     public static void initialize() {
         ServerLifecycleEvents.SERVER_STARTED.register((minecraftServer) -> {
-            loadSpells(minecraftServer.getResourceManager());
-            loadPools(minecraftServer.getResourceManager());
-            loadContainers(minecraftServer.getResourceManager());
-            WeaponCompatibility.initialize();
+            rawIds = SpellRawIds.of(minecraftServer);
+            install(parse(minecraftServer.getResourceManager()));
             encodeContent();
+            lastSync = syncFormat();
+        });
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((minecraftServer, resourceManager, success) -> {
+            if (success) {
+                reload(minecraftServer, resourceManager);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register((minecraftServer) -> {
+            rawIds = null;
+            lastSync = null;
         });
     }
 
-    public static void loadSpells(ResourceManager resourceManager) {
-        var gson = new Gson();
-        Map<Identifier, SpellEntry> parsed = new HashMap<>();
-        // Reading all attribute files
-        int rawId = 1;
-        var directory = "spells";
-        for (var entry : resourceManager.findResources(directory, fileName -> fileName.getPath().endsWith(".json")).entrySet()) {
-            var identifier = entry.getKey();
-            var resource = entry.getValue();
-            try {
-                // System.out.println("Checking resource: " + identifier);
-                JsonReader reader = new JsonReader(new InputStreamReader(resource.getInputStream()));
-                Spell container = gson.fromJson(reader, Spell.class);
-                var id = identifier
-                        .toString().replace(directory + "/", "");
-                id = id.substring(0, id.lastIndexOf('.'));
-                Validator.validate(container);
-                parsed.put(new Identifier(id), new SpellEntry(container, rawId++));
-                // System.out.println("loaded spell - id: " + id +  " spell: " + gson.toJson(container));
-            } catch (Exception e) {
-                System.err.println("Failed to parse spell: " + identifier);
-                e.printStackTrace();
+    private static final String SPELLS_DIRECTORY = "spells";
+    private static final String POOLS_DIRECTORY = "spell_pools";
+    private static final String CONTAINERS_DIRECTORY = "spell_assignments";
+    private static SpellResourceLoader.LoadReport lastLoadReport;
+    /// Raw id allocations of the running server, null when there is no server
+    @Nullable private static SpellRawIds rawIds;
+
+    @Nullable
+    public static SpellResourceLoader.LoadReport lastLoadReport() {
+        return lastLoadReport;
+    }
+
+    /**
+     * Parses spells, pools and assignments, and applies them.
+     */
+    public static void load(ResourceManager resourceManager) {
+        install(parse(resourceManager));
+    }
+
+    // MARK: Reload
+
+    /// Content parsed and linked, ready to be installed
+    private record Parsed(SpellSnapshot content, Map<Identifier, SpellContainer> containers, SpellResourceLoader.LoadReport report) { }
+    private static final AtomicInteger reloadGeneration = new AtomicInteger();
+    /// What clients have been sent the last time, base of the next delta
+    @Nullable private static SyncFormat lastSync;
+    private static final List<ReloadListener> reloadListeners = new ArrayList<>();
+
+    public interface ReloadListener {
+        /**
+         * Invoked on the server thread, after new content has been installed and encoded.
+         * @param delta encoded `SpellRegistryCodec` delta, from the previous content to the current
+         */
+        void onReload(MinecraftServer server, PacketByteBuf delta);
+    }
+
+    public static void onReload(ReloadListener listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * Rebuilds the registry off the server thread, then installs it on the server thread.
+     * Casts and projectiles in flight hold their own `Spell` reference, so they finish with the old definition.
+     */
+    private static void reload(MinecraftServer server, ResourceManager resourceManager) {
+        var generation = reloadGeneration.incrementAndGet();
+        CompletableFuture.supplyAsync(() -> parse(resourceManager), Util.getMainWorkerExecutor())
+                .thenAcceptAsync(parsed -> {
+                    if (generation != reloadGeneration.get()) {
+                        return; // Superseded by a newer reload
+                    }
+                    var previousDigest = digest;
+                    var previousSync = lastSync != null ? lastSync : syncFormat();
+                    install(parsed);
+                    encodeContent();
+                    var sync = syncFormat();
+                    lastSync = sync;
+                    if (Arrays.equals(previousDigest, digest)) {
+                        return; // Nothing changed
+                    }
+                    var delta = SpellRegistryCodec.encodeDelta(previousSync, sync, previousDigest, digest);
+                    System.out.println("SpellRegistry reloaded, delta size: " + delta.readableBytes() + " bytes");
+                    for (var listener: reloadListeners) {
+                        listener.onReload(server, delta);
+                    }
+                }, server)
+                .exceptionally(error -> {
+                    System.err.println("Failed to reload SpellRegistry: " + error.getMessage());
+                    return null;
+                });
+    }
+
+    // MARK: Loading
+
+    /**
+     * Parses spells, pools and assignments concurrently, then links them in order.
+     * Doesn't touch the installed content, safe to call off the server thread.
+     */
+    private static Parsed parse(ResourceManager resourceManager) {
+        var report = new SpellResourceLoader.LoadReport();
+        var executor = SpellResourceLoader.createExecutor();
+        try {
+            var spells = SpellResourceLoader.loadAsync(resourceManager, SPELLS_DIRECTORY, Spell.class, Validator::validate, report, executor);
+            var pools = SpellResourceLoader.loadAsync(resourceManager, POOLS_DIRECTORY, SpellPool.DataFormat.class, Validator::validate, report, executor);
+            var containers = SpellResourceLoader.loadAsync(resourceManager, CONTAINERS_DIRECTORY, SpellContainer.class, Validator::validate, report, executor);
+            var spellEntries = buildSpells(spells.join());
+            for (var entry: spellEntries.entrySet()) {
+                for (var reference: SpellLinker.link(entry.getValue().spell)) {
+                    report.unresolved(entry.getKey(), reference);
+                }
             }
+            var poolEntries = buildPools(pools.join(), spellEntries);
+            var containerEntries = buildContainers(containers.join());
+            report.finish();
+            return new Parsed(SpellSnapshot.of(spellEntries, poolEntries), containerEntries, report);
+        } finally {
+            executor.shutdown();
         }
-        spells.clear();
-        spells.putAll(parsed);
-        spellsUpdated();
+    }
+
+    private static void install(Parsed parsed) {
+        content = parsed.content();
+        containers.clear();
+        containers.putAll(parsed.containers());
+        WeaponCompatibility.initialize();
+        parsed.report().print(List.of(SPELLS_DIRECTORY, POOLS_DIRECTORY, CONTAINERS_DIRECTORY));
+        lastLoadReport = parsed.report();
+    }
+
+    public static void loadSpells(ResourceManager resourceManager) {
+        var spells = buildSpells(loadDirectory(resourceManager, SPELLS_DIRECTORY, Spell.class, Validator::validate));
+        content = SpellSnapshot.of(spells, content.pools());
     }
 
     public static void loadPools(ResourceManager resourceManager) {
-        var gson = new Gson();
-        Map<Identifier, SpellPool.DataFormat> parsed = new HashMap<>();
-        // Reading all attribute files
-        var directory = "spell_pools";
-        for (var entry : resourceManager.findResources(directory, fileName -> fileName.getPath().endsWith(".json")).entrySet()) {
-            var identifier = entry.getKey();
-            var resource = entry.getValue();
-            try {
-                // System.out.println("Checking resource: " + identifier);
-                JsonReader reader = new JsonReader(new InputStreamReader(resource.getInputStream()));
-                SpellPool.DataFormat pool = gson.fromJson(reader, SpellPool.DataFormat.class);
-                var id = identifier
-                        .toString().replace(directory + "/", "");
-                id = id.substring(0, id.lastIndexOf('.'));
-                parsed.put(new Identifier(id), pool);
-                // System.out.println("loaded pool - " + id +  " ids: " + pool.spell_ids);
-            } catch (Exception e) {
-                System.err.println("Failed to parse spell_pool: " + identifier);
-                e.printStackTrace();
-            }
-        }
-        Map<Identifier, Spell> spellFlat = spells.entrySet()
-                .stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().spell));
-        pools.clear();
-        for (var entry: parsed.entrySet()) {
-            pools.put(entry.getKey(), SpellPool.fromData(entry.getValue(), spellFlat));
-        }
+        var parsed = loadDirectory(resourceManager, POOLS_DIRECTORY, SpellPool.DataFormat.class, Validator::validate);
+        var current = content;
+        content = SpellSnapshot.of(current.spells(), buildPools(parsed, current.spells()));
     }
 
     public static void loadContainers(ResourceManager resourceManager) {
-        var gson = new Gson();
-        Map<Identifier, SpellContainer> parsed = new HashMap<>();
-        // Reading all attribute files
-        var directory = "spell_assignments";
-        for (var entry : resourceManager.findResources(directory, fileName -> fileName.getPath().endsWith(".json")).entrySet()) {
-            var identifier = entry.getKey();
-            var resource = entry.getValue();
-            try {
-                // System.out.println("Checking resource: " + identifier);
-                JsonReader reader = new JsonReader(new InputStreamReader(resource.getInputStream()));
-                SpellContainer container = gson.fromJson(reader, SpellContainer.class);
-                var id = identifier
-                        .toString().replace(directory + "/", "");
-                id = id.substring(0, id.lastIndexOf('.'));
-                parsed.put(new Identifier(id), container);
-                // System.out.println("loaded assignment - id: " + id +  " assignment: " + container.spell);
-            } catch (Exception e) {
-                System.err.println("Failed to parse spell_assignment: " + identifier);
-                e.printStackTrace();
-            }
-        }
+        var parsed = buildContainers(loadDirectory(resourceManager, CONTAINERS_DIRECTORY, SpellContainer.class, Validator::validate));
         containers.clear();
         containers.putAll(parsed);
-        containers.putAll(book_containers);
     }
 
-    private static void spellsUpdated() {
-        updateReverseMaps();
-        spellCount.clear();
-        for(var school: MagicSchool.values()) {
-            spellCount.put(school, 0);
+    private static <T> List<SpellResourceLoader.Parsed<T>> loadDirectory(ResourceManager resourceManager, String directory, Class<T> type,
+                                                                         SpellResourceLoader.Validation<T> validation) {
+        var report = new SpellResourceLoader.LoadReport();
+        var executor = SpellResourceLoader.createExecutor();
+        try {
+            return SpellResourceLoader.loadAsync(resourceManager, directory, type, validation, report, executor).join();
+        } finally {
+            executor.shutdown();
+            report.finish();
+            report.print(List.of(directory));
+        }
+    }
+
+    private static Map<Identifier, SpellEntry> buildSpells(List<SpellResourceLoader.Parsed<Spell>> parsed) {
+        // Parsed entries are sorted by id, so newly added spells are allocated deterministically
+        var ids = parsed.stream().map(SpellResourceLoader.Parsed::id).toList();
+        var allocator = rawIds != null ? rawIds : new SpellRawIds();
+        allocator.allocate(ids);
+        var spells = new HashMap<Identifier, SpellEntry>();
+        for (var entry: parsed) {
+            spells.put(entry.id(), new SpellEntry(entry.value(), allocator.rawId(entry.id())));
         }
-        for(var spell: spells.entrySet()) {
-            var school = spell.getValue().spell.school;
-            var current = spellCount.get(school);
-            spellCount.put(school, current + 1);
+        return spells;
+    }
+
+    private static Map<Identifier, SpellPool> buildPools(List<SpellResourceLoader.Parsed<SpellPool.DataFormat>> parsed,
+                                                         Map<Identifier, SpellEntry> spells) {
+        Map<Identifier, Spell> spellFlat = spells.entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().spell));
+        var pools = new HashMap<Identifier, SpellPool>();
+        for (var entry: parsed) {
+            pools.put(entry.id(), SpellPool.fromData(entry.value(), spellFlat));
         }
+        return pools;
+    }
+
+    private static Map<Identifier, SpellContainer> buildContainers(List<SpellResourceLoader.Parsed<SpellContainer>> parsed) {
+        var containers = new HashMap<Identifier, SpellContainer>();
+        for (var entry: parsed) {
+            containers.put(entry.id(), entry.value());
+        }
+        containers.putAll(book_containers);
+        return containers;
     }
 
     public static int numberOfSpells(MagicSchool school) {
-        return spellCount.get(school);
+        return content.spellCount(school);
     }
 
     public static SpellContainer containerForItem(Identifier itemId) {
@@ -158,7 +244,7 @@ public class SpellRegistry {
     }
 
     public static Spell getSpell(Identifier spellId) {
-        var entry = spells.get(spellId);
+        var entry = content.spells().get(spellId);
         if (entry != null) {
             return entry.spell;
         }
@@ -166,11 +252,14 @@ public class SpellRegistry {
     }
 
     public static SpellPool spellPool(Identifier id) {
-        var pool = pools.get(id);
+        var pool = content.pools().get(id);
         return pool != null ? pool : SpellPool.empty;
     }
 
-    public static PacketByteBuf encoded = PacketByteBufs.create();
+    /// Binary encoding (`SpellRegistryCodec.PROTOCOL_BINARY`)
+    public static PacketByteBuf encodedBinary = PacketByteBufs.create();
+    /// Digest of `encodedBinary`
+    public static byte[] digest = new byte[0];
 
     public static class SyncFormat { public SyncFormat() { }
         public Map<String, SpellEntry> spells = new HashMap<>();
@@ -178,81 +267,135 @@ public class SpellRegistry {
         public Map<String, SpellContainer> containers = new HashMap<>();
     }
 
-    private static void encodeContent() {
-        var gson = new Gson();
-        var buffer = PacketByteBufs.create();
-
+    private static SyncFormat syncFormat() {
         var sync = new SyncFormat();
-        spells.forEach((key, value) -> {
+        var current = content;
+        current.spells().forEach((key, value) -> {
             sync.spells.put(key.toString(), value);
         });
-        pools.forEach((key, value) -> {
+        current.pools().forEach((key, value) -> {
             sync.pools.put(key.toString(), value.toSync());
         });
         containers.forEach((key, value) -> {
             sync.containers.put(key.toString(), value);
         });
-        var json = gson.toJson(sync);
+        return sync;
+    }
 
-        List<String> chunks = new ArrayList<>();
-        var chunkSize = 10000;
-        for (int i = 0; i < json.length(); i += chunkSize) {
-            chunks.add(json.substring(i, Math.min(json.length(), i + chunkSize)));
-        }
-        buffer.writeInt(chunks.size());
-        for (var chunk: chunks) {
-            buffer.writeString(chunk);
-        }
+    private static void encodeContent() {
+        var sync = syncFormat();
+        encodedBinary = SpellRegistryCodec.encode(sync);
+        digest = SpellRegistryCodec.digest(encodedBinary);
+        System.out.println("Encoded SpellRegistry size (with package overhead): " + encodedBinary.readableBytes() + " bytes");
+    }
 
-        System.out.println("Encoded SpellRegistry size (with package overhead): " + buffer.readableBytes()
-                + " bytes (in " + chunks.size() + " string chunks with the size of "  + chunkSize + ")");
+    /**
+     * Binary encoding of the currently installed content (for example, after applying a delta).
+     */
+    public static PacketByteBuf encodeBinaryContent() {
+        return SpellRegistryCodec.encode(syncFormat());
+    }
 
-        encoded = buffer;
+    public static void decodeBinaryContent(PacketByteBuf buffer) {
+        apply(SpellRegistryCodec.decode(buffer));
     }
 
-    public static void decodeContent(PacketByteBuf buffer) {
-        var chunkCount = buffer.readInt();
-        String json = "";
-        for (int i = 0; i < chunkCount; ++i) {
-            json = json.concat(buffer.readString());
-        }
-        var gson = new Gson();
-        SyncFormat sync = gson.fromJson(json, SyncFormat.class);
-        spells.clear();
+    private static void apply(SyncFormat sync) {
+        var spells = new HashMap<Identifier, SpellEntry>();
         sync.spells.forEach((key, value) -> {
+            SpellLinker.link(value.spell);
             spells.put(new Identifier(key), value);
         });
+        var pools = new HashMap<>(content.pools());
         sync.pools.forEach((key, value) -> {
             pools.put(new Identifier(key), SpellPool.fromSync(value));
         });
         sync.containers.forEach((key, value) -> {
             containers.put(new Identifier(key), value);
         });
-        spellsUpdated();
+        content = SpellSnapshot.of(spells, pools);
     }
 
-    private record ReverseEntry(Identifier identifier, Spell spell) { }
-    private static final Map<Integer, ReverseEntry> reverseSpells = new HashMap<>();
-
-    private static void updateReverseMaps() {
-        reverseSpells.clear();
-        for (var entry: spells.entrySet()) {
-            var id = entry.getKey();
-            var spell = entry.getValue().spell;
-            var rawId = entry.getValue().rawId;
-            reverseSpells.put(rawId, new ReverseEntry(id, spell));
-        }
+    /**
+     * Applies an incremental update on top of the current content.
+     */
+    public static void applyDelta(SpellRegistryCodec.Delta delta) {
+        var current = content;
+        var spells = new HashMap<>(current.spells());
+        var pools = new HashMap<>(current.pools());
+        delta.removedSpells().forEach(id -> spells.remove(new Identifier(id)));
+        delta.removedPools().forEach(id -> pools.remove(new Identifier(id)));
+        delta.removedContainers().forEach(id -> containers.remove(new Identifier(id)));
+        var upserts = delta.upserts();
+        upserts.spells.forEach((key, value) -> {
+            SpellLinker.link(value.spell);
+            spells.put(new Identifier(key), value);
+        });
+        upserts.pools.forEach((key, value) -> {
+            pools.put(new Identifier(key), SpellPool.fromSync(value));
+        });
+        upserts.containers.forEach((key, value) -> {
+            containers.put(new Identifier(key), value);
+        });
+        content = SpellSnapshot.of(spells, pools);
     }
 
-    public static int rawSpellId(Identifier identifier) {
-        return spells.get(identifier).rawId;
+    /**
+     * Returns the raw id of the spell, or `0` if the spell is unknown.
+     */
+    public static int rawSpellId(@Nullable Identifier identifier) {
+        if (identifier == null) {
+            return 0;
+        }
+        var entry = content.spells().get(identifier);
+        return entry != null ? entry.rawId : 0;
     }
 
     public static Optional<Identifier> fromRawSpellId(int rawId) {
-        var reverseEntry = reverseSpells.get(rawId);
-        if (reverseEntry != null) {
-            return Optional.of(reverseEntry.identifier);
+        var compiled = content.get(rawId);
+        if (compiled != null) {
+            return Optional.of(compiled.id());
         }
         return Optional.empty();
     }
+
+    @Nullable
+    public static Spell getSpell(int rawId) {
+        var compiled = content.get(rawId);
+        return compiled != null ? compiled.spell() : null;
+    }
+
+    @Nullable
+    public static CompiledSpell compiled(int rawId) {
+        return content.get(rawId);
+    }
+
+    @Nullable
+    public static CompiledSpell compiled(Identifier id) {
+        return content.get(id);
+    }
+
+    /**
+     * Lookup by the string form of the id, as stored in spell containers.
+     */
+    @Nullable
+    public static CompiledSpell compiled(String id) {
+        return content.get(id);
+    }
+
+    /// Spells of earlier registry loads (held by casts in progress), compiled once on demand
+    private static final Map<Spell, CompiledSpell> staleCompiled = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Derived data of the given spell.
+     * Spells of an earlier registry load (held by casts in progress) are compiled on demand.
+     */
+    public static CompiledSpell compiled(Spell spell) {
+        var compiled = content.get(spell);
+        if (compiled != null) {
+            return compiled;
+        }
+        // Weak keys are compared by identity
+        return staleCompiled.computeIfAbsent(spell, key -> CompiledSpell.of(null, 0, key));
+    }
 }
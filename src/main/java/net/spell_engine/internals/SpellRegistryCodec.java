@@ -0,0 +1,384 @@
+package net.spell_engine.internals;
+
+import com.google.gson.Gson;
+import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.minecraft.network.PacketByteBuf;
+import net.spell_engine.api.spell.Spell;
+import net.spell_engine.api.spell.SpellContainer;
+import net.spell_engine.api.spell.SpellPool;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary sync format of the spell registry.
+ *
+ * Layout: `varint version | byte flags | varint body length | byte[] body (optionally deflated)`
+ * Body: `string table | spells (by raw id) | pools | containers`
+ * Identifiers and other repeated strings are written once into the string table,
+ * entries refer to them with varint indices, so the client can decode everything in a single pass.
+ */
+public class SpellRegistryCodec {
+    /// Legacy format, chunked Gson JSON
+    public static final int PROTOCOL_JSON = 0;
+    /// Binary format, see class description
+    public static final int PROTOCOL_BINARY = 1;
+    /// Binary format, preceded by a content digest so clients can load it from their cache
+    public static final int PROTOCOL_CACHED = 2;
+    /// Cached binary format, datapack reloads are pushed as incremental deltas
+    public static final int PROTOCOL_DELTA = 3;
+    /// Delta format, gameplay packets refer to spells and particle batches by raw id
+    public static final int PROTOCOL_RAW_IDS = 4;
+    /// Highest protocol version supported by this build
+    public static final int PROTOCOL_VERSION = PROTOCOL_RAW_IDS;
+    /// Lowest protocol version supported by this build, gameplay packets of earlier versions are not compatible
+    public static final int MIN_PROTOCOL_VERSION = PROTOCOL_RAW_IDS;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int FLAG_DEFLATED = 1;
+    private static final int DEFLATE_THRESHOLD = 512; // Bytes, smaller bodies are not worth compressing
+    /// Identifiers and other table strings
+    private static final int MAX_STRING_LENGTH = 32767;
+    /// JSON of a single spell
+    private static final int MAX_SPELL_LENGTH = 262144;
+    /// Decoded body size, guards the allocation of inflated bodies
+    private static final int MAX_BODY_LENGTH = 1 << 24;
+    private static final int MAX_DIGEST_LENGTH = 64;
+    private static final Gson gson = new Gson();
+
+    // MARK: Encoding
+
+    public static PacketByteBuf encode(SpellRegistry.SyncFormat sync) {
+        return encode(sync, true);
+    }
+
+    public static PacketByteBuf encode(SpellRegistry.SyncFormat sync, boolean deflate) {
+        var body = encodeBody(sync);
+        var flags = 0;
+        var payload = body;
+        if (deflate && body.length >= DEFLATE_THRESHOLD) {
+            payload = deflate(body);
+            flags |= FLAG_DEFLATED;
+        }
+        var buffer = PacketByteBufs.create();
+        buffer.writeVarInt(FORMAT_VERSION);
+        buffer.writeByte(flags);
+        buffer.writeVarInt(body.length);
+        buffer.writeByteArray(payload);
+        return buffer;
+    }
+
+    private static byte[] encodeBody(SpellRegistry.SyncFormat sync) {
+        var strings = new StringTable();
+        var entries = new PacketByteBuf(Unpooled.buffer());
+
+        // Spells, ordered by raw id
+        var spells = new ArrayList<>(sync.spells.entrySet());
+        spells.sort(Comparator.comparingInt(entry -> entry.getValue().rawId));
+        entries.writeVarInt(spells.size());
+        for (var entry: spells) {
+            entries.writeVarInt(entry.getValue().rawId);
+            entries.writeVarInt(strings.intern(entry.getKey()));
+            entries.writeString(gson.toJson(entry.getValue().spell), MAX_SPELL_LENGTH);
+        }
+
+        // Pools, ordered by id
+        var pools = new TreeMap<>(sync.pools);
+        entries.writeVarInt(pools.size());
+        for (var entry: pools.entrySet()) {
+            var pool = entry.getValue();
+            entries.writeVarInt(strings.intern(entry.getKey()));
+            entries.writeBoolean(pool.craftable);
+            writeStrings(entries, strings, pool.spell_ids);
+            writeStrings(entries, strings, pool.schools);
+        }
+
+        // Containers, ordered by id
+        var containers = new TreeMap<>(sync.containers);
+        entries.writeVarInt(containers.size());
+        for (var entry: containers.entrySet()) {
+            var container = entry.getValue();
+            entries.writeVarInt(strings.intern(entry.getKey()));
+            entries.writeBoolean(container.is_proxy);
+            entries.writeVarInt(container.max_spell_count);
+            // `0` stands for null, so indices are shifted by one
+            entries.writeVarInt(container.pool != null ? strings.intern(container.pool) + 1 : 0);
+            writeStrings(entries, strings, container.spell_ids);
+        }
+
+        var body = new PacketByteBuf(Unpooled.buffer());
+        body.writeVarInt(strings.values.size());
+        for (var string: strings.values) {
+            body.writeString(string, MAX_STRING_LENGTH);
+        }
+        body.writeBytes(entries);
+
+        var bytes = new byte[body.readableBytes()];
+        body.readBytes(bytes);
+        return bytes;
+    }
+
+    private static void writeStrings(PacketByteBuf buffer, StringTable strings, List<String> values) {
+        if (values == null) {
+            buffer.writeVarInt(0);
+            return;
+        }
+        buffer.writeVarInt(values.size());
+        for (var value: values) {
+            buffer.writeVarInt(strings.intern(value));
+        }
+    }
+
+    private static class StringTable {
+        final List<String> values = new ArrayList<>();
+        final Map<String, Integer> indices = new HashMap<>();
+
+        int intern(String value) {
+            var index = indices.get(value);
+            if (index == null) {
+                index = values.size();
+                values.add(value);
+                indices.put(value, index);
+            }
+            return index;
+        }
+    }
+
+    // MARK: Decoding
+
+    public static SpellRegistry.SyncFormat decode(PacketByteBuf buffer) {
+        var version = buffer.readVarInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported SpellRegistry sync format version: " + version);
+        }
+        var flags = buffer.readByte();
+        var length = buffer.readVarInt();
+        if (length < 0 || length > MAX_BODY_LENGTH) {
+            throw new IllegalArgumentException("SpellRegistry sync body is too large: " + length + " bytes");
+        }
+        var payload = buffer.readByteArray(MAX_BODY_LENGTH);
+        var bytes = ((flags & FLAG_DEFLATED) != 0) ? inflate(payload, length) : payload;
+        return decodeBody(new PacketByteBuf(Unpooled.wrappedBuffer(bytes)));
+    }
+
+    private static SpellRegistry.SyncFormat decodeBody(PacketByteBuf body) {
+        var sync = new SpellRegistry.SyncFormat();
+
+        var stringCount = readCount(body);
+        var strings = new String[stringCount];
+        for (int i = 0; i < stringCount; ++i) {
+            strings[i] = body.readString(MAX_STRING_LENGTH);
+        }
+
+        var spellCount = readCount(body);
+        for (int i = 0; i < spellCount; ++i) {
+            var rawId = body.readVarInt();
+            var id = strings[body.readVarInt()];
+            var spell = gson.fromJson(body.readString(MAX_SPELL_LENGTH), Spell.class);
+            sync.spells.put(id, new SpellRegistry.SpellEntry(spell, rawId));
+        }
+
+        var poolCount = readCount(body);
+        for (int i = 0; i < poolCount; ++i) {
+            var id = strings[body.readVarInt()];
+            var pool = new SpellPool.SyncFormat();
+            pool.craftable = body.readBoolean();
+            pool.spell_ids = readStrings(body, strings);
+            pool.schools = readStrings(body, strings);
+            sync.pools.put(id, pool);
+        }
+
+        var containerCount = readCount(body);
+        for (int i = 0; i < containerCount; ++i) {
+            var id = strings[body.readVarInt()];
+            var isProxy = body.readBoolean();
+            var maxSpellCount = body.readVarInt();
+            var poolIndex = body.readVarInt();
+            var pool = poolIndex > 0 ? strings[poolIndex - 1] : null;
+            var spellIds = readStrings(body, strings);
+            sync.containers.put(id, new SpellContainer(isProxy, pool, maxSpellCount, spellIds));
+        }
+
+        return sync;
+    }
+
+    /**
+     * Reads an element count, each element takes at least one byte, so larger counts are malformed.
+     */
+    private static int readCount(PacketByteBuf buffer) {
+        var count = buffer.readVarInt();
+        if (count < 0 || count > buffer.readableBytes()) {
+            throw new IllegalArgumentException("SpellRegistry sync data is malformed, invalid count: " + count);
+        }
+        return count;
+    }
+
+    private static List<String> readStrings(PacketByteBuf buffer, String[] strings) {
+        var count = readCount(buffer);
+        var values = new ArrayList<String>(count);
+        for (int i = 0; i < count; ++i) {
+            values.add(strings[buffer.readVarInt()]);
+        }
+        return values;
+    }
+
+    // MARK: Delta
+
+    /**
+     * Incremental update between two registry contents.
+     * @param baseDigest digest of the content the delta applies to
+     * @param digest digest of the content after applying the delta
+     */
+    public record Delta(byte[] baseDigest, byte[] digest,
+                        List<String> removedSpells, List<String> removedPools, List<String> removedContainers,
+                        SpellRegistry.SyncFormat upserts) { }
+
+    /**
+     * Layout: `varint version | byte[] base digest | byte[] digest | removed spells, pools, containers | encoded upserts`
+     */
+    public static PacketByteBuf encodeDelta(SpellRegistry.SyncFormat previous, SpellRegistry.SyncFormat next,
+                                            byte[] baseDigest, byte[] digest) {
+        var upserts = new SpellRegistry.SyncFormat();
+        var removedSpells = diff(previous.spells, next.spells, upserts.spells,
+                (a, b) -> a.rawId == b.rawId && gson.toJson(a.spell).equals(gson.toJson(b.spell)));
+        var removedPools = diff(previous.pools, next.pools, upserts.pools,
+                (a, b) -> gson.toJson(a).equals(gson.toJson(b)));
+        var removedContainers = diff(previous.containers, next.containers, upserts.containers,
+                (a, b) -> gson.toJson(a).equals(gson.toJson(b)));
+
+        var buffer = PacketByteBufs.create();
+        buffer.writeVarInt(FORMAT_VERSION);
+        buffer.writeByteArray(baseDigest);
+        buffer.writeByteArray(digest);
+        writeIds(buffer, removedSpells);
+        writeIds(buffer, removedPools);
+        writeIds(buffer, removedContainers);
+        buffer.writeBytes(encode(upserts));
+        return buffer;
+    }
+
+    public static Delta decodeDelta(PacketByteBuf buffer) {
+        var version = buffer.readVarInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported SpellRegistry delta format version: " + version);
+        }
+        var baseDigest = buffer.readByteArray(MAX_DIGEST_LENGTH);
+        var digest = buffer.readByteArray(MAX_DIGEST_LENGTH);
+        var removedSpells = readIds(buffer);
+        var removedPools = readIds(buffer);
+        var removedContainers = readIds(buffer);
+        var upserts = decode(buffer);
+        return new Delta(baseDigest, digest, removedSpells, removedPools, removedContainers, upserts);
+    }
+
+    private interface Equality<T> {
+        boolean same(T a, T b);
+    }
+
+    /**
+     * Collects new and changed entries into `upserts`, returns the removed keys (sorted).
+     */
+    private static <T> List<String> diff(Map<String, T> previous, Map<String, T> next, Map<String, T> upserts, Equality<T> equality) {
+        for (var entry: next.entrySet()) {
+            var old = previous.get(entry.getKey());
+            if (old == null || !equality.same(old, entry.getValue())) {
+                upserts.put(entry.getKey(), entry.getValue());
+            }
+        }
+        var removed = new ArrayList<String>();
+        for (var key: previous.keySet()) {
+            if (!next.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+        Collections.sort(removed);
+        return removed;
+    }
+
+    private static void writeIds(PacketByteBuf buffer, List<String> ids) {
+        buffer.writeVarInt(ids.size());
+        for (var id: ids) {
+            buffer.writeString(id, MAX_STRING_LENGTH);
+        }
+    }
+
+    private static List<String> readIds(PacketByteBuf buffer) {
+        var count = readCount(buffer);
+        var ids = new ArrayList<String>(count);
+        for (int i = 0; i < count; ++i) {
+            ids.add(buffer.readString(MAX_STRING_LENGTH));
+        }
+        return ids;
+    }
+
+    // MARK: Digest
+
+    /**
+     * Stable digest of an encoded registry, the readable bytes of the buffer are left untouched.
+     * Encoding is deterministic (entries are sorted), so identical content yields identical digest.
+     */
+    public static byte[] digest(PacketByteBuf encoded) {
+        var bytes = new byte[encoded.readableBytes()];
+        encoded.getBytes(encoded.readerIndex(), bytes);
+        return digest(bytes);
+    }
+
+    public static byte[] digest(byte[] encoded) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(encoded);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // MARK: Compression
+
+    private static byte[] deflate(byte[] input) {
+        var deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            var output = new byte[Math.max(64, input.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int length) {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            var output = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                var count = inflater.inflate(output, read, length - read);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += count;
+            }
+            if (read != length) {
+                throw new IllegalArgumentException("SpellRegistry sync body is truncated, expected " + length + " bytes, got " + read);
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("SpellRegistry sync body is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package net.spell_engine.internals;
+
+import com.google.gson.Gson;
+import com.mojang.logging.LogUtils;
+import com.google.gson.stream.JsonReader;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses the JSON files of a data directory concurrently, on a bounded pool.
+ * Results are sorted by identifier, so the outcome does not depend on scheduling.
+ */
+public class SpellResourceLoader {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson gson = new Gson();
+    private static final int MAX_THREADS = 4;
+
+    public record Parsed<T>(Identifier id, T value) { }
+
+    public interface Validation<T> {
+        /**
+         * Throws for files that cannot be loaded, adds to `warnings` for files loaded despite problems.
+         */
+        void validate(T value, List<String> warnings) throws Exception;
+    }
+
+    public static ExecutorService createExecutor() {
+        var threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        var counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "SpellEngine-Loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static <T> CompletableFuture<List<Parsed<T>>> loadAsync(ResourceManager resourceManager, String directory, Class<T> type,
+                                                                   @Nullable Validation<T> validation, LoadReport report, Executor executor) {
+        var resources = resourceManager.findResources(directory, fileName -> fileName.getPath().endsWith(".json"));
+        var tasks = new ArrayList<CompletableFuture<Parsed<T>>>(resources.size());
+        for (var entry: resources.entrySet()) {
+            var identifier = entry.getKey();
+            var resource = entry.getValue();
+            tasks.add(CompletableFuture.supplyAsync(() -> {
+                var startedAt = System.nanoTime();
+                try (var reader = new JsonReader(new InputStreamReader(resource.getInputStream()))) {
+                    T value = gson.fromJson(reader, type);
+                    if (value == null) {
+                        throw new IllegalArgumentException("File is empty");
+                    }
+                    if (validation != null) {
+                        var warnings = new ArrayList<String>();
+                        validation.validate(value, warnings);
+                        for (var warning: warnings) {
+                            report.warned(directory, identifier, warning);
+                        }
+                    }
+                    report.parsed(directory, identifier, System.nanoTime() - startedAt);
+                    return new Parsed<>(idFromResource(directory, identifier), value);
+                } catch (Exception e) {
+                    report.failed(directory, identifier, System.nanoTime() - startedAt, e);
+                    return null;
+                }
+            }, executor));
+        }
+        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            var results = new ArrayList<Parsed<T>>(tasks.size());
+            for (var task: tasks) {
+                var parsed = task.join();
+                if (parsed != null) {
+                    results.add(parsed);
+                }
+            }
+            results.sort(Comparator.comparing(parsed -> parsed.id().toString()));
+            return results;
+        });
+    }
+
+    /**
+     * `namespace:directory/path/name.json` -> `namespace:path/name`
+     */
+    private static Identifier idFromResource(String directory, Identifier resource) {
+        var id = resource.toString().replace(directory + "/", "");
+        id = id.substring(0, id.lastIndexOf('.'));
+        return new Identifier(id);
+    }
+
+    // MARK: Report
+
+    public static class LoadReport {
+        private static final int SLOWEST_COUNT = 5;
+
+        public record FileTiming(String directory, Identifier resource, long nanos) { }
+        public record Failure(String directory, Identifier resource, String message) { }
+        public record Warning(String directory, Identifier resource, String message) { }
+        public record Unresolved(Identifier id, String reference) { }
+
+        private final long startedAt = System.nanoTime();
+        private long finishedAt = 0;
+        private final ConcurrentLinkedQueue<FileTiming> timings = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Warning> warnings = new ConcurrentLinkedQueue<>();
+        private final ConcurrentHashMap<String, AtomicInteger> loaded = new ConcurrentHashMap<>();
+        private final ConcurrentLinkedQueue<Unresolved> unresolved = new ConcurrentLinkedQueue<>();
+
+        void parsed(String directory, Identifier resource, long nanos) {
+            timings.add(new FileTiming(directory, resource, nanos));
+            loaded.computeIfAbsent(directory, key -> new AtomicInteger()).incrementAndGet();
+        }
+
+        void failed(String directory, Identifier resource, long nanos, Exception error) {
+            timings.add(new FileTiming(directory, resource, nanos));
+            var message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+            failures.add(new Failure(directory, resource, message));
+        }
+
+        void warned(String directory, Identifier resource, String message) {
+            warnings.add(new Warning(directory, resource, message));
+        }
+
+        void unresolved(Identifier id, String reference) {
+            unresolved.add(new Unresolved(id, reference));
+        }
+
+        public void finish() {
+            finishedAt = System.nanoTime();
+        }
+
+        public int loadedCount(String directory) {
+            var count = loaded.get(directory);
+            return count != null ? count.get() : 0;
+        }
+
+        public List<Failure> failures() {
+            return List.copyOf(failures);
+        }
+
+        public List<Warning> warnings() {
+            return List.copyOf(warnings);
+        }
+
+        public List<Unresolved> unresolved() {
+            return List.copyOf(unresolved);
+        }
+
+        public List<FileTiming> slowest() {
+            return timings.stream()
+                    .sorted(Comparator.comparingLong(FileTiming::nanos).reversed())
+                    .limit(SLOWEST_COUNT)
+                    .toList();
+        }
+
+        public long totalMillis() {
+            var end = finishedAt > 0 ? finishedAt : System.nanoTime();
+            return TimeUnit.NANOSECONDS.toMillis(end - startedAt);
+        }
+
+        public void print(List<String> directories) {
+            var counts = new ArrayList<String>();
+            for (var directory: directories) {
+                counts.add(directory + ": " + loadedCount(directory));
+            }
+            LOGGER.info("SpellRegistry loaded in {} ms - {}, failures: {}, warnings: {}, unresolved references: {}",
+                    totalMillis(), String.join(", ", counts), failures.size(), warnings.size(), unresolved.size());
+            for (var timing: slowest()) {
+                LOGGER.info("  slowest - {} {} ms", timing.resource(), String.format("%.2f", timing.nanos() / 1_000_000.0));
+            }
+            for (var failure: failures) {
+                LOGGER.error("  Failed to load {} file: {} - {}", failure.directory(), failure.resource(), failure.message());
+            }
+            for (var warning: warnings) {
+                LOGGER.warn("  Problem in {} file: {} - {}", warning.directory(), warning.resource(), warning.message());
+            }
+            for (var entry: unresolved) {
+                LOGGER.warn("  Unresolved reference in {} - {}", entry.id(), entry.reference());
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package net.spell_engine.internals;
+
+import net.minecraft.util.Identifier;
+import net.spell_engine.api.spell.ParticleBatch;
+import net.spell_engine.api.spell.Spell;
+import net.spell_engine.api.spell.SpellPool;
+import net.spell_power.api.MagicSchool;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Frozen state of the spell registry, replaced as a whole on (re)load,
+ * so readers never observe a half applied reload.
+ * Spells are stored in a dense array indexed by raw id.
+ */
+public final class SpellSnapshot {
+    public static final SpellSnapshot EMPTY = of(Map.of(), Map.of());
+
+    private final Map<Identifier, SpellRegistry.SpellEntry> spells;
+    private final Map<Identifier, SpellPool> pools;
+    /// Indexed by raw id, holes are left by removed spells
+    private final CompiledSpell[] byRawId;
+    private final Map<Identifier, CompiledSpell> byId;
+    private final Map<String, CompiledSpell> byStringId;
+    private final Map<Spell, CompiledSpell> bySpell;
+    private final Map<MagicSchool, Integer> spellCount;
+    /// Packed `rawId << 32 | index` of each particle batch
+    private final Map<ParticleBatch, Long> particleBatchRefs;
+
+    private SpellSnapshot(Map<Identifier, SpellRegistry.SpellEntry> spells, Map<Identifier, SpellPool> pools,
+                          CompiledSpell[] byRawId, Map<Identifier, CompiledSpell> byId, Map<String, CompiledSpell> byStringId,
+                          Map<Spell, CompiledSpell> bySpell, Map<MagicSchool, Integer> spellCount,
+                          Map<ParticleBatch, Long> particleBatchRefs) {
+        this.spells = spells;
+        this.pools = pools;
+        this.byRawId = byRawId;
+        this.byId = byId;
+        this.byStringId = byStringId;
+        this.bySpell = bySpell;
+        this.spellCount = spellCount;
+        this.particleBatchRefs = particleBatchRefs;
+    }
+
+    public static SpellSnapshot of(Map<Identifier, SpellRegistry.SpellEntry> spells, Map<Identifier, SpellPool> pools) {
+        var maxRawId = 0;
+        for (var entry: spells.values()) {
+            maxRawId = Math.max(maxRawId, entry.rawId);
+        }
+        var byRawId = new CompiledSpell[maxRawId + 1];
+        var byId = new HashMap<Identifier, CompiledSpell>();
+        var byStringId = new HashMap<String, CompiledSpell>();
+        var bySpell = new IdentityHashMap<Spell, CompiledSpell>();
+        var spellCount = new EnumMap<MagicSchool, Integer>(MagicSchool.class);
+        var particleBatchRefs = new IdentityHashMap<ParticleBatch, Long>();
+        for(var school: MagicSchool.values()) {
+            spellCount.put(school, 0);
+        }
+        for (var entry: spells.entrySet()) {
+            var id = entry.getKey();
+            var rawId = entry.getValue().rawId;
+            var compiled = CompiledSpell.of(id, rawId, entry.getValue().spell);
+            if (rawId > 0) {
+                byRawId[rawId] = compiled;
+                var batches = compiled.particleBatches();
+                for (int i = 0; i < batches.size(); ++i) {
+                    particleBatchRefs.putIfAbsent(batches.get(i), ((long) rawId << 32) | i);
+                }
+            }
+            byId.put(id, compiled);
+            byStringId.put(id.toString(), compiled);
+            bySpell.put(compiled.spell(), compiled);
+            spellCount.merge(compiled.spell().school, 1, Integer::sum);
+        }
+        return new SpellSnapshot(
+                Collections.unmodifiableMap(new HashMap<>(spells)),
+                Collections.unmodifiableMap(new HashMap<>(pools)),
+                byRawId,
+                Collections.unmodifiableMap(byId),
+                Collections.unmodifiableMap(byStringId),
+                Collections.unmodifiableMap(bySpell),
+                Collections.unmodifiableMap(spellCount),
+                Collections.unmodifiableMap(particleBatchRefs));
+    }
+
+    public Map<Identifier, SpellRegistry.SpellEntry> spells() {
+        return spells;
+    }
+
+    public Map<Identifier, SpellPool> pools() {
+        return pools;
+    }
+
+    public int spellCount(MagicSchool school) {
+        return spellCount.get(school);
+    }
+
+    @Nullable
+    public CompiledSpell get(int rawId) {
+        return (rawId > 0 && rawId < byRawId.length) ? byRawId[rawId] : null;
+    }
+
+    @Nullable
+    public CompiledSpell get(Identifier id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Lookup by the string form of the id, as stored in spell containers.
+     */
+    @Nullable
+    public CompiledSpell get(String id) {
+        return byStringId.get(id);
+    }
+
+    /**
+     * Reference of a particle batch of this snapshot, packed as `rawId << 32 | index`.
+     * Returns `-1` for batches not part of any spell of this snapshot.
+     */
+    public long particleBatchRef(ParticleBatch batch) {
+        var ref = particleBatchRefs.get(batch);
+        return ref != null ? ref : -1;
+    }
+
+    @Nullable
+    public ParticleBatch particleBatch(int rawId, int index) {
+        var compiled = get(rawId);
+        if (compiled == null || index < 0 || index >= compiled.particleBatches().size()) {
+            return null;
+        }
+        return compiled.particleBatches().get(index);
+    }
+
+    /**
+     * Lookup by spell instance, misses for spells of an earlier snapshot.
+     */
+    @Nullable
+    public CompiledSpell get(Spell spell) {
+        return bySpell.get(spell);
+    }
+}
@@ -0,0 +1,192 @@
+package net.spell_engine.internals;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hashed timing wheel of tasks, keyed by world time.
+ * Tasks further out than the wheel size wait in their slot for multiple rounds.
+ *
+ * Due tasks (including ones of skipped ticks) are drained into a ready queue.
+ * Tasks exceeding the time budget of a tick are left in the ready queue for the next tick.
+ */
+public class TimingWheel {
+    private static final int WHEEL_SIZE = 256; // Power of two
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    public interface Handle {
+        /**
+         * Prevents the task from running, no effect if it already ran.
+         */
+        void cancel();
+        boolean isCancelled();
+        boolean isDone();
+    }
+
+    private class Task implements Handle {
+        final long executionTime;
+        final Runnable runnable;
+        boolean cancelled = false;
+        boolean done = false;
+
+        Task(long executionTime, Runnable runnable) {
+            this.executionTime = executionTime;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled && !done) {
+                cancelled = true;
+                pending -= 1;
+                cancelledTasks.increment();
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private final ArrayList<Task>[] slots = new ArrayList[WHEEL_SIZE];
+    private final ArrayDeque<Task> ready = new ArrayDeque<>();
+    /// Last world time whose slot was drained
+    private long lastTime = Long.MIN_VALUE;
+    /// Scheduled tasks not yet run or cancelled
+    private int pending = 0;
+
+    // MARK: Metrics
+
+    private static final LongAdder scheduledTasks = new LongAdder();
+    private static final LongAdder executedTasks = new LongAdder();
+    private static final LongAdder cancelledTasks = new LongAdder();
+    private static final LongAdder overdueTasks = new LongAdder();
+    private static final LongAdder spilledTicks = new LongAdder();
+
+    public record Metrics(long scheduled, long executed, long cancelled, long overdue, long spilledTicks) { }
+
+    public static Metrics metrics() {
+        return new Metrics(scheduledTasks.sum(), executedTasks.sum(), cancelledTasks.sum(), overdueTasks.sum(), spilledTicks.sum());
+    }
+
+    public static void resetMetrics() {
+        scheduledTasks.reset();
+        executedTasks.reset();
+        cancelledTasks.reset();
+        overdueTasks.reset();
+        spilledTicks.reset();
+    }
+
+    /**
+     * Number of tasks waiting to run (including the ones spilled over from earlier ticks).
+     */
+    public int depth() {
+        return pending;
+    }
+
+    /**
+     * Number of due tasks, that didn't fit into the time budget of earlier ticks.
+     */
+    public int backlog() {
+        return ready.size();
+    }
+
+    // MARK: Scheduling
+
+    public Handle schedule(long currentTime, long executionTime, Runnable runnable) {
+        if (lastTime == Long.MIN_VALUE) {
+            lastTime = currentTime - 1;
+        }
+        var task = new Task(executionTime, runnable);
+        if (executionTime <= lastTime) {
+            ready.add(task);
+        } else {
+            var index = (int) (executionTime & MASK);
+            var slot = slots[index];
+            if (slot == null) {
+                slot = new ArrayList<>(4);
+                slots[index] = slot;
+            }
+            slot.add(task);
+        }
+        pending += 1;
+        scheduledTasks.increment();
+        return task;
+    }
+
+    /**
+     * Runs the tasks due at `currentTime` (and earlier), within the given time budget.
+     * At least one task runs per call, so the queue always progresses.
+     * @param budgetNanos time budget, `0` or less for no limit
+     */
+    public void run(long currentTime, long budgetNanos) {
+        if (lastTime == Long.MIN_VALUE) {
+            lastTime = currentTime - 1;
+        }
+        if (currentTime > lastTime) {
+            var skipped = currentTime - lastTime;
+            // Each slot needs to be visited once at most, even if many ticks were skipped
+            var ticks = Math.min(skipped, WHEEL_SIZE);
+            for (long time = currentTime - ticks + 1; time <= currentTime; ++time) {
+                drain((int) (time & MASK), currentTime);
+            }
+            lastTime = currentTime;
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
+        var startedAt = System.nanoTime();
+        boolean first = true;
+        while (!ready.isEmpty()) {
+            if (!first && budgetNanos > 0 && System.nanoTime() - startedAt > budgetNanos) {
+                spilledTicks.increment();
+                return;
+            }
+            var task = ready.poll();
+            if (task.cancelled) {
+                continue;
+            }
+            first = false;
+            task.done = true;
+            pending -= 1;
+            executedTasks.increment();
+            try {
+                task.runnable.run();
+            } catch (Exception e) {
+                System.err.println("Spell Engine - Scheduled task failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void drain(int index, long currentTime) {
+        var slot = slots[index];
+        if (slot == null || slot.isEmpty()) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < slot.size(); ++i) {
+            var task = slot.get(i);
+            if (task.cancelled) {
+                continue;
+            }
+            if (task.executionTime <= currentTime) {
+                if (task.executionTime < currentTime) {
+                    overdueTasks.increment();
+                }
+                ready.add(task);
+            } else {
+                slot.set(kept++, task); // Due in a later round
+            }
+        }
+        slot.subList(kept, slot.size()).clear();
+    }
+}
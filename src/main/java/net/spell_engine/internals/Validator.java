@@ -1,9 +1,124 @@
 package net.spell_engine.internals;
 
+import net.spell_engine.api.spell.ParticleBatch;
+import net.spell_engine.api.spell.Sound;
 import net.spell_engine.api.spell.Spell;
+import net.spell_engine.api.spell.SpellContainer;
+import net.spell_engine.api.spell.SpellPool;
 
+import java.util.List;
+
+/**
+ * Schema checks for data files, stopping at the first violation.
+ * Only structural problems are rejected, those that would otherwise fail mid-combat.
+ * Fields that used to be optional are not rejected, only reported as warnings.
+ */
 public class Validator {
-    public static void validate(Spell spell) throws Exception {
+    public static void validate(Spell spell, List<String> warnings) throws Exception {
+        require(spell.school != null, "school", "is missing");
+        require(spell.range >= 0, "range", "must not be negative");
+        require(spell.cast != null, "cast", "is missing");
+        validate(spell.cast.particles, "cast.particles");
+        validate(spell.cast.start_sound, "cast.start_sound");
+        validate(spell.cast.sound, "cast.sound");
+        require(spell.cost != null, "cost", "is missing");
+
+        var release = spell.release;
+        if (release == null) {
+            if (spell.mode == Spell.Mode.CAST) {
+                warnings.add("`release` is missing, the spell cannot be cast");
+            }
+        } else {
+            require(release.target != null, "release.target", "is missing");
+            require(release.target.type != null, "release.target.type", "is missing");
+            switch (release.target.type) {
+                case AREA -> {
+                    require(release.target.area != null, "release.target.area", "is required for AREA target");
+                }
+                case BEAM -> {
+                    require(release.target.beam != null, "release.target.beam", "is required for BEAM target");
+                    validate(release.target.beam.block_hit_particles, "release.target.beam.block_hit_particles");
+                }
+                case PROJECTILE -> {
+                    validate(release.target.projectile, "release.target.projectile");
+                }
+                case METEOR -> {
+                    require(release.target.meteor != null, "release.target.meteor", "is required for METEOR target");
+                    validate(release.target.projectile, "release.target.projectile");
+                }
+                case CURSOR, SELF -> { }
+            }
+            validate(release.particles, "release.particles");
+            validate(release.sound, "release.sound");
+        }
+
+        require(spell.impact != null, "impact", "is missing");
+        for (int i = 0; i < spell.impact.length; ++i) {
+            var path = "impact[" + i + "]";
+            var impact = spell.impact[i];
+            require(impact != null, path, "is null");
+            require(impact.action != null, path + ".action", "is missing");
+            require(impact.action.type != null, path + ".action.type", "is missing");
+            switch (impact.action.type) {
+                case DAMAGE -> require(impact.action.damage != null, path + ".action.damage", "is required for DAMAGE");
+                case HEAL -> require(impact.action.heal != null, path + ".action.heal", "is required for HEAL");
+                case FIRE -> require(impact.action.fire != null, path + ".action.fire", "is required for FIRE");
+                case STATUS_EFFECT -> {
+                    var statusEffect = impact.action.status_effect;
+                    require(statusEffect != null, path + ".action.status_effect", "is required for STATUS_EFFECT");
+                    require(statusEffect.effect_id != null && !statusEffect.effect_id.isEmpty(),
+                            path + ".action.status_effect.effect_id", "is missing");
+                }
+            }
+            validate(impact.particles, path + ".particles");
+            validate(impact.sound, path + ".sound");
+        }
+    }
+
+    public static void validate(SpellPool.DataFormat pool, List<String> warnings) throws Exception {
+        require(pool.spell_ids != null || pool.all_of_schools != null, "spell_ids", "or all_of_schools is required");
+    }
+
+    public static void validate(SpellContainer container, List<String> warnings) throws Exception {
+        require(container.spell_ids != null, "spell_ids", "must not be null");
+    }
+
+    private static void validate(Spell.ProjectileData projectile, String path) throws Exception {
+        require(projectile != null, path, "is required");
+        require(projectile.perks != null, path + ".perks", "must not be null");
+        require(projectile.client_data != null, path + ".client_data", "is required");
+        validate(projectile.client_data.travel_particles, path + ".client_data.travel_particles");
+        if (projectile.area_impact != null) {
+            require(projectile.area_impact.area != null, path + ".area_impact.area", "must not be null");
+            validate(projectile.area_impact.particles, path + ".area_impact.particles");
+            validate(projectile.area_impact.sound, path + ".area_impact.sound");
+        }
+    }
+
+    private static void validate(ParticleBatch[] batches, String path) throws Exception {
+        if (batches == null) {
+            return;
+        }
+        for (int i = 0; i < batches.length; ++i) {
+            var batch = batches[i];
+            var batchPath = path + "[" + i + "]";
+            require(batch != null, batchPath, "is null");
+            require(batch.particle_id != null && !batch.particle_id.isEmpty(), batchPath + ".particle_id", "is missing");
+            require(batch.shape != null, batchPath + ".shape", "is missing");
+            require(batch.origin != null, batchPath + ".origin", "is missing");
+        }
+    }
+
+    private static void validate(Sound sound, String path) throws Exception {
+        if (sound == null) {
+            return;
+        }
+        require(sound.id() != null && !sound.id().isEmpty(), path + ".id", "is missing");
+    }
 
+    private static void require(boolean condition, String path, String message) throws Exception {
+        if (!condition) {
+            throw new IllegalArgumentException("`" + path + "` " + message);
+        }
     }
 }
@@ -1,37 +1,24 @@
 package net.spell_engine.internals;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import net.spell_engine.SpellEngineMod;
+
 public interface WorldScheduler {
 
     // World functions
     long getSchedulerTime();
     // Additions
-    Map<Long, List<Runnable>> getScheduledTasks();
+    TimingWheel getScheduledTasks();
 
-    default void schedule(int ticks, Runnable task) {
+    default TimingWheel.Handle schedule(int ticks, Runnable task) {
         if (ticks <= 0) {
             throw new IllegalArgumentException("Cannot schedule a task for 0 or less ticks");
         }
-        long executionTime = getSchedulerTime() + ticks;
-        var list = getScheduledTasks().getOrDefault(executionTime, new ArrayList<>());
-        list.add(task);
-        getScheduledTasks().put(executionTime, list);
+        var currentTime = getSchedulerTime();
+        return getScheduledTasks().schedule(currentTime, currentTime + ticks, task);
     }
 
     default void updateScheduledTasks() {
-        var taskQueue = getScheduledTasks();
-        if (taskQueue.isEmpty()) {
-            return;
-        }
-        var currentTime = getSchedulerTime();
-        var currentTasks = taskQueue.get(currentTime);
-        if (currentTasks != null) {
-            for (Runnable task : currentTasks) {
-                task.run();
-            }
-            taskQueue.remove(currentTime);
-        }
+        var budgetNanos = (long) (SpellEngineMod.config.scheduler_tick_budget_ms * 1_000_000);
+        getScheduledTasks().run(getSchedulerTime(), budgetNanos);
     }
 }
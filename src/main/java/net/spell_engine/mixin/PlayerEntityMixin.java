@@ -71,11 +71,8 @@ public class PlayerEntityMixin implements SpellCasterEntity {
         if (process != null) {
             return process.spell();
         }
-        var id = getCurrentSpellId();
-        if (id != null) {
-            return SpellRegistry.getSpell(id);
-        }
-        return null;
+        var rawValue = player().getDataTracker().get(SPELL_ENGINE_SELECTED_SPELL);
+        return SpellRegistry.getSpell(rawValue);
     }
 
     @Override
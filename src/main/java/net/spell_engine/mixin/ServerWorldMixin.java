@@ -2,19 +2,18 @@ package net.spell_engine.mixin;
 
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.world.World;
+import net.spell_engine.entity.SpellProjectileManager;
+import net.spell_engine.internals.TimingWheel;
 import net.spell_engine.internals.WorldScheduler;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.function.BooleanSupplier;
 
 @Mixin(ServerWorld.class)
-public abstract class ServerWorldMixin implements WorldScheduler {
+public abstract class ServerWorldMixin implements WorldScheduler, SpellProjectileManager.Provider {
 
     // MARK: WorldScheduler
 
@@ -23,13 +22,22 @@ public abstract class ServerWorldMixin implements WorldScheduler {
         return ((World)((Object)this)).getTime();
     }
 
-    private Map<Long, List<Runnable>> scheduledTasks = new HashMap<>();
+    private final TimingWheel scheduledTasks = new TimingWheel();
 
     @Override
-    public Map<Long, List<Runnable>> getScheduledTasks() {
+    public TimingWheel getScheduledTasks() {
         return scheduledTasks;
     }
 
+    // MARK: SpellProjectileManager.Provider
+
+    private final SpellProjectileManager spellProjectileManager = new SpellProjectileManager((ServerWorld) (Object) this);
+
+    @Override
+    public SpellProjectileManager getSpellProjectileManager() {
+        return spellProjectileManager;
+    }
+
     @Inject(method = "tick", at = @At("TAIL"))
     private void tick_TAIL_SpellEngine(BooleanSupplier shouldKeepTicking, CallbackInfo ci) {
         updateScheduledTasks();
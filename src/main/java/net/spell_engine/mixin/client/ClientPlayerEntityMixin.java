@@ -259,9 +259,10 @@ public abstract class ClientPlayerEntityMixin implements SpellCasterClient {
             return targets;
         }
         boolean fallbackToPreviousTargets = false;
-        var targetingMode = SpellHelper.selectionTargetingMode(currentSpell);
+        var compiled = SpellRegistry.compiled(currentSpell);
+        var targetingMode = compiled.selectionTargetingMode();
         var targetType = currentSpell.release.target.type;
-        var intents = SpellHelper.intents(currentSpell);
+        var intents = compiled.intents();
         Predicate<Entity> selectionPredicate = (target) -> {
             boolean intentAllows = false;
             for (var intent: intents) {
@@ -9,72 +9,87 @@ import net.minecraft.util.math.Vec3d;
 import net.spell_engine.SpellEngineMod;
 import net.spell_engine.api.spell.ParticleBatch;
 import net.spell_engine.config.ServerConfig;
+import net.spell_engine.internals.SpellRegistry;
 import net.spell_engine.internals.casting.SpellCast;
+import net.spell_engine.particle.ParticleQuality;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class Packets {
 
-    public record SpellCastSync(Identifier spellId, float speed, int length) {
+    /**
+     * @param rawSpellId `0` stands for no spell, see `SpellRegistry.compiled(int)`
+     */
+    public record SpellCastSync(int rawSpellId, float speed, int length) {
         public static Identifier ID = new Identifier(SpellEngineMod.ID, "cast_sync");
 
+        public SpellCastSync(@Nullable Identifier spellId, float speed, int length) {
+            this(SpellRegistry.rawSpellId(spellId), speed, length);
+        }
+
         public PacketByteBuf write() {
             PacketByteBuf buffer = PacketByteBufs.create();
-            if (spellId == null) {
-                buffer.writeString("");
-            } else {
-                buffer.writeString(spellId.toString());
-            }
+            buffer.writeVarInt(rawSpellId);
             buffer.writeFloat(speed);
             buffer.writeInt(length);
             return buffer;
         }
         public static SpellCastSync read(PacketByteBuf buffer) {
-            var string = buffer.readString();
-            Identifier spellId = null;
-            if (!string.isEmpty()) {
-                spellId = new Identifier(string);
-            }
+            var rawSpellId = buffer.readVarInt();
             var speed = buffer.readFloat();
             var length = buffer.readInt();
-            return new SpellCastSync(spellId, speed, length);
+            return new SpellCastSync(rawSpellId, speed, length);
         }
     }
 
-    public record SpellRequest(SpellCast.Action action, Identifier spellId, float progress, int[] targets) {
+    public record SpellRequest(SpellCast.Action action, int rawSpellId, float progress, int[] targets) {
         public static Identifier ID = new Identifier(SpellEngineMod.ID, "release_request");
 
+        public SpellRequest(SpellCast.Action action, Identifier spellId, float progress, int[] targets) {
+            this(action, SpellRegistry.rawSpellId(spellId), progress, targets);
+        }
+
         public PacketByteBuf write() {
             PacketByteBuf buffer = PacketByteBufs.create();
             buffer.writeEnumConstant(action);
-            buffer.writeString(spellId.toString());
+            buffer.writeVarInt(rawSpellId);
             buffer.writeFloat(progress);
             buffer.writeIntArray(targets);
             return buffer;
         }
         public static SpellRequest read(PacketByteBuf buffer) {
             var action = buffer.readEnumConstant(SpellCast.Action.class);
-            var spellId = new Identifier(buffer.readString());
+            var rawSpellId = buffer.readVarInt();
             var progress = buffer.readFloat();
             var targets = buffer.readIntArray();
-            return new SpellRequest(action, spellId, progress, targets);
+            return new SpellRequest(action, rawSpellId, progress, targets);
         }
     }
 
-    public record SpellCooldown(Identifier spellId, int duration) {
+    public record SpellCooldown(List<Change> changes) {
         public static Identifier ID = new Identifier(SpellEngineMod.ID, "spell_cooldown");
+        /// Duration `0` clears the cooldown
+        public record Change(int rawSpellId, int duration) { }
+
         public PacketByteBuf write() {
             PacketByteBuf buffer = PacketByteBufs.create();
-            buffer.writeString(spellId.toString());
-            buffer.writeInt(duration);
+            buffer.writeVarInt(changes.size());
+            for (var change: changes) {
+                buffer.writeVarInt(change.rawSpellId());
+                buffer.writeVarInt(change.duration());
+            }
             return buffer;
         }
 
         public static SpellCooldown read(PacketByteBuf buffer) {
-            var spellId = new Identifier(buffer.readString());
-            int duration = buffer.readInt();
-            return new SpellCooldown(spellId, duration);
+            var count = buffer.readVarInt();
+            var changes = new ArrayList<Change>(count);
+            for (int i = 0; i < count; ++i) {
+                changes.add(new Change(buffer.readVarInt(), buffer.readVarInt()));
+            }
+            return new SpellCooldown(changes);
         }
     }
 
@@ -103,20 +118,60 @@ public class Packets {
         public record Spawn(int sourceEntityId, Vec3d sourceLocation, ParticleBatch batch) { }
 
         public static Identifier ID = new Identifier(SpellEngineMod.ID, "particle_effects");
+
+        // Batches of the spell registry are referenced by raw spell id and index (see `SpellSnapshot.particleBatch`),
+        // others are written inline
+        private static final byte BATCH_INLINE = 0;
+        private static final byte BATCH_REFERENCE = 1;
+        private static final byte BATCH_REFERENCE_SCALED = 2;
+        /// Source locations are written relative to the first one, in 1/64 block units
+        private static final double POSITION_SCALE = 64;
+
         public PacketByteBuf write(float countMultiplier) {
             PacketByteBuf buffer = PacketByteBufs.create();
-            buffer.writeInt(sourceType.ordinal());
-            buffer.writeInt(spawns.size());
+            buffer.writeVarInt(sourceType.ordinal());
+            buffer.writeVarInt(spawns.size());
+            if (spawns.isEmpty()) {
+                return buffer;
+            }
+            var anchor = spawns.get(0).sourceLocation;
+            buffer.writeDouble(anchor.x);
+            buffer.writeDouble(anchor.y);
+            buffer.writeDouble(anchor.z);
+            var snapshot = SpellRegistry.snapshot();
             for (var spawn: spawns) {
-                buffer.writeInt(spawn.sourceEntityId);
-                buffer.writeDouble(spawn.sourceLocation.x);
-                buffer.writeDouble(spawn.sourceLocation.y);
-                buffer.writeDouble(spawn.sourceLocation.z);
-                write(spawn.batch, buffer, countMultiplier);
+                buffer.writeVarInt(spawn.sourceEntityId);
+                writeQuantized(spawn.sourceLocation.x - anchor.x, buffer);
+                writeQuantized(spawn.sourceLocation.y - anchor.y, buffer);
+                writeQuantized(spawn.sourceLocation.z - anchor.z, buffer);
+                var ref = snapshot.particleBatchRef(spawn.batch);
+                if (ref < 0) {
+                    buffer.writeByte(BATCH_INLINE);
+                    write(spawn.batch, buffer, countMultiplier);
+                } else {
+                    var scaled = countMultiplier != 1F;
+                    buffer.writeByte(scaled ? BATCH_REFERENCE_SCALED : BATCH_REFERENCE);
+                    buffer.writeVarInt((int) (ref >> 32));
+                    buffer.writeVarInt((int) ref);
+                    if (scaled) {
+                        buffer.writeFloat(countMultiplier);
+                    }
+                }
             }
             return buffer;
         }
 
+        private static void writeQuantized(double value, PacketByteBuf buffer) {
+            var quantized = (int) Math.round(value * POSITION_SCALE);
+            buffer.writeVarInt((quantized << 1) ^ (quantized >> 31)); // ZigZag
+        }
+
+        private static double readQuantized(PacketByteBuf buffer) {
+            var zigzag = buffer.readVarInt();
+            var quantized = (zigzag >>> 1) ^ -(zigzag & 1);
+            return quantized / POSITION_SCALE;
+        }
+
         private static void write(ParticleBatch batch, PacketByteBuf buffer, float countMultiplier) {
             buffer.writeString(batch.particle_id);
             buffer.writeInt(batch.shape.ordinal());
@@ -144,22 +199,146 @@ public class Packets {
         }
 
         public static ParticleBatches read(PacketByteBuf buffer) {
-            var sourceType = SourceType.values()[buffer.readInt()];
-            var spawnCount = buffer.readInt();
-            var spawns = new ArrayList<Spawn>();
+            var sourceType = SourceType.values()[buffer.readVarInt()];
+            var spawnCount = buffer.readVarInt();
+            var spawns = new ArrayList<Spawn>(spawnCount);
+            if (spawnCount == 0) {
+                return new ParticleBatches(sourceType, spawns);
+            }
+            var anchorX = buffer.readDouble();
+            var anchorY = buffer.readDouble();
+            var anchorZ = buffer.readDouble();
+            var snapshot = SpellRegistry.snapshot();
             for (int i = 0; i < spawnCount; ++i) {
-                spawns.add(new Spawn(
-                        buffer.readInt(),
-                        new Vec3d(buffer.readDouble(), buffer.readDouble(), buffer.readDouble()),
-                        readBatch(buffer)
-                ));
+                var sourceEntityId = buffer.readVarInt();
+                var sourceLocation = new Vec3d(
+                        anchorX + readQuantized(buffer),
+                        anchorY + readQuantized(buffer),
+                        anchorZ + readQuantized(buffer));
+                ParticleBatch batch;
+                var kind = buffer.readByte();
+                if (kind == BATCH_INLINE) {
+                    batch = readBatch(buffer);
+                } else {
+                    var rawId = buffer.readVarInt();
+                    var index = buffer.readVarInt();
+                    batch = snapshot.particleBatch(rawId, index);
+                    if (kind == BATCH_REFERENCE_SCALED) {
+                        var countMultiplier = buffer.readFloat();
+                        if (batch != null) {
+                            batch = new ParticleBatch(batch);
+                            batch.count *= countMultiplier;
+                        }
+                    }
+                }
+                if (batch != null) { // Unknown references are skipped, the registry may be out of sync for a moment
+                    spawns.add(new Spawn(sourceEntityId, sourceLocation, batch));
+                }
             }
             return new ParticleBatches(sourceType, spawns);
         }
     }
 
+    /**
+     * Particle and sound effects of a server tick for a single player, see `ServerEffectsBuffer`
+     */
+    public record EffectsBundle(List<ParticleBatches> particles, List<SoundEffect> sounds) {
+        public static Identifier ID = new Identifier(SpellEngineMod.ID, "effects_bundle");
+        /// `soundRawId` is the raw id of the sound event in the (synced) vanilla registry
+        public record SoundEffect(int soundRawId, double x, double y, double z, float volume, float pitch, long seed) { }
+
+        /**
+         * @param particlePayloads written `ParticleBatches` packets
+         */
+        public static PacketByteBuf write(List<PacketByteBuf> particlePayloads, List<SoundEffect> sounds) {
+            PacketByteBuf buffer = PacketByteBufs.create();
+            buffer.writeVarInt(particlePayloads.size());
+            for (var payload: particlePayloads) {
+                buffer.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+            }
+            buffer.writeVarInt(sounds.size());
+            for (var sound: sounds) {
+                buffer.writeVarInt(sound.soundRawId);
+                buffer.writeDouble(sound.x);
+                buffer.writeDouble(sound.y);
+                buffer.writeDouble(sound.z);
+                buffer.writeFloat(sound.volume);
+                buffer.writeFloat(sound.pitch);
+                buffer.writeLong(sound.seed);
+            }
+            return buffer;
+        }
+
+        public static EffectsBundle read(PacketByteBuf buffer) {
+            var particleCount = buffer.readVarInt();
+            var particles = new ArrayList<ParticleBatches>(particleCount);
+            for (int i = 0; i < particleCount; ++i) {
+                particles.add(ParticleBatches.read(buffer));
+            }
+            var soundCount = buffer.readVarInt();
+            var sounds = new ArrayList<SoundEffect>(soundCount);
+            for (int i = 0; i < soundCount; ++i) {
+                sounds.add(new SoundEffect(buffer.readVarInt(),
+                        buffer.readDouble(), buffer.readDouble(), buffer.readDouble(),
+                        buffer.readFloat(), buffer.readFloat(), buffer.readLong()));
+            }
+            return new EffectsBundle(particles, sounds);
+        }
+    }
+
     public static class SpellRegistrySync {
-        public static Identifier ID = new Identifier(SpellEngineMod.ID, "spell_registry_sync");
+        public static Identifier BINARY_ID = new Identifier(SpellEngineMod.ID, "spell_registry_sync_binary");
+        /// Incremental update after datapack reload, see `SpellRegistryCodec.encodeDelta`
+        public static Identifier DELTA_ID = new Identifier(SpellEngineMod.ID, "spell_registry_sync_delta");
+    }
+
+    /**
+     * Sent by the client on join, `full` requests the payload itself, skipping the digest handshake
+     */
+    public record SpellRegistryRequest(int protocolVersion, boolean full) {
+        public static Identifier ID = new Identifier(SpellEngineMod.ID, "spell_registry_request");
+
+        public PacketByteBuf write() {
+            PacketByteBuf buffer = PacketByteBufs.create();
+            buffer.writeVarInt(protocolVersion);
+            buffer.writeBoolean(full);
+            return buffer;
+        }
+
+        public static SpellRegistryRequest read(PacketByteBuf buffer) {
+            var protocolVersion = buffer.readVarInt();
+            var full = buffer.readBoolean();
+            return new SpellRegistryRequest(protocolVersion, full);
+        }
+    }
+
+    public record SpellRegistryDigest(byte[] digest) {
+        public static Identifier ID = new Identifier(SpellEngineMod.ID, "spell_registry_digest");
+
+        public PacketByteBuf write() {
+            PacketByteBuf buffer = PacketByteBufs.create();
+            buffer.writeByteArray(digest);
+            return buffer;
+        }
+
+        public static SpellRegistryDigest read(PacketByteBuf buffer) {
+            var digest = buffer.readByteArray(64);
+            return new SpellRegistryDigest(digest);
+        }
+    }
+
+    public record ParticleQualityReport(ParticleQuality quality) {
+        public static Identifier ID = new Identifier(SpellEngineMod.ID, "particle_quality");
+
+        public PacketByteBuf write() {
+            PacketByteBuf buffer = PacketByteBufs.create();
+            buffer.writeVarInt(quality.ordinal());
+            return buffer;
+        }
+
+        public static ParticleQualityReport read(PacketByteBuf buffer) {
+            return new ParticleQualityReport(ParticleQuality.from(buffer.readVarInt()));
+        }
     }
 
     public static class ConfigSync {
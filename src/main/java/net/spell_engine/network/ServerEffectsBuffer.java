@@ -0,0 +1,92 @@
+package net.spell_engine.network;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.s2c.play.PlaySoundS2CPacket;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.sound.SoundCategory;
+import net.minecraft.sound.SoundEvent;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the particle and sound effects sent to each player during a server tick,
+ * and sends them as a single `EffectsBundle` packet at the end of the tick.
+ * Players without the bundle channel receive the individual packets right away.
+ */
+public class ServerEffectsBuffer {
+    private static class PlayerBuffer {
+        final List<PacketByteBuf> particles = new ArrayList<>();
+        final List<Packets.EffectsBundle.SoundEffect> sounds = new ArrayList<>();
+    }
+
+    private static final Map<ServerPlayerEntity, PlayerBuffer> buffers = new IdentityHashMap<>();
+
+    public static void initialize() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            flush();
+        });
+    }
+
+    /**
+     * @param payload written `ParticleBatches` packet, may be shared across players, it is not consumed
+     */
+    public static void particles(ServerPlayerEntity player, PacketByteBuf payload) {
+        if (ServerPlayNetworking.canSend(player, Packets.EffectsBundle.ID)) {
+            buffer(player).particles.add(payload);
+        } else if (ServerPlayNetworking.canSend(player, Packets.ParticleBatches.ID)) {
+            ServerPlayNetworking.send(player, Packets.ParticleBatches.ID, payload);
+        }
+    }
+
+    /**
+     * Equivalent of `world.playSound(null, x, y, z, soundEvent, SoundCategory.PLAYERS, volume, pitch)`.
+     */
+    public static void playSound(ServerWorld world, double x, double y, double z, SoundEvent soundEvent, float volume, float pitch) {
+        var seed = world.getRandom().nextLong();
+        var distance = soundEvent.getDistanceToTravel(volume);
+        var rawId = Registries.SOUND_EVENT.getRawId(soundEvent);
+        for (var player: world.getPlayers()) {
+            if (player.squaredDistanceTo(x, y, z) >= distance * distance) {
+                continue;
+            }
+            if (rawId >= 0 && ServerPlayNetworking.canSend(player, Packets.EffectsBundle.ID)) {
+                buffer(player).sounds.add(new Packets.EffectsBundle.SoundEffect(rawId, x, y, z, volume, pitch, seed));
+            } else {
+                player.networkHandler.sendPacket(new PlaySoundS2CPacket(RegistryEntry.of(soundEvent),
+                        SoundCategory.PLAYERS, x, y, z, volume, pitch, seed));
+            }
+        }
+    }
+
+    private static PlayerBuffer buffer(ServerPlayerEntity player) {
+        return buffers.computeIfAbsent(player, key -> new PlayerBuffer());
+    }
+
+    private static void flush() {
+        if (buffers.isEmpty()) {
+            return;
+        }
+        for (var entry: buffers.entrySet()) {
+            var player = entry.getKey();
+            if (player.isDisconnected()) {
+                continue;
+            }
+            var buffer = entry.getValue();
+            try {
+                ServerPlayNetworking.send(player, Packets.EffectsBundle.ID,
+                        Packets.EffectsBundle.write(buffer.particles, buffer.sounds));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        buffers.clear();
+    }
+}
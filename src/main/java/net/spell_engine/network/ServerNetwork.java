@@ -2,28 +2,81 @@ package net.spell_engine.network;
 
 import com.google.common.collect.Iterables;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.entity.Entity;
 import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
 import net.spell_engine.SpellEngineMod;
 import net.spell_engine.internals.SpellCastSyncHelper;
 import net.spell_engine.internals.SpellHelper;
 import net.spell_engine.internals.SpellRegistry;
+import net.spell_engine.internals.SpellRegistryCodec;
+import net.spell_engine.particle.ParticleQuality;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ServerNetwork {
     private static PacketByteBuf configSerialized = PacketByteBufs.create();
+    /// Negotiated spell registry protocol version of each player
+    private static final Map<UUID, Integer> registryProtocols = new ConcurrentHashMap<>();
+    /// Particle quality reported by each player
+    private static final Map<UUID, ParticleQuality> particleQualities = new ConcurrentHashMap<>();
+
+    public static ParticleQuality particleQuality(ServerPlayerEntity player) {
+        return particleQualities.getOrDefault(player.getUuid(), ParticleQuality.FULL);
+    }
 
     public static void initializeHandlers() {
         configSerialized = Packets.ConfigSync.write(SpellEngineMod.config);
+        ServerEffectsBuffer.initialize();
         ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
-            sender.sendPacket(Packets.SpellRegistrySync.ID, SpellRegistry.encoded);
             sender.sendPacket(Packets.ConfigSync.ID, configSerialized);
         });
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            registryProtocols.remove(handler.getPlayer().getUuid());
+            particleQualities.remove(handler.getPlayer().getUuid());
+        });
+        SpellRegistry.onReload((server, delta) -> {
+            for (var player: PlayerLookup.all(server)) {
+                var protocolVersion = registryProtocols.get(player.getUuid());
+                if (protocolVersion == null) {
+                    continue; // Registry not requested yet, will receive the current one
+                }
+                ServerPlayNetworking.send(player, Packets.SpellRegistrySync.DELTA_ID, delta);
+            }
+        });
+
+        ServerPlayNetworking.registerGlobalReceiver(Packets.SpellRegistryRequest.ID, (server, player, handler, buf, responseSender) -> {
+            var packet = Packets.SpellRegistryRequest.read(buf);
+            if (packet.protocolVersion() < SpellRegistryCodec.MIN_PROTOCOL_VERSION) {
+                // Gameplay packets of earlier versions of this mod are not compatible
+                var message = Text.literal("Incompatible Spell Engine version, please use the same version as the server");
+                server.execute(() -> handler.disconnect(message));
+                return;
+            }
+            // Clients of later versions of this mod may support a newer protocol
+            var protocolVersion = Math.min(packet.protocolVersion(), SpellRegistryCodec.PROTOCOL_VERSION);
+            registryProtocols.put(player.getUuid(), protocolVersion);
+            if (!packet.full()) {
+                // Client may have this content cached, it requests the payload on a miss
+                responseSender.sendPacket(Packets.SpellRegistryDigest.ID, new Packets.SpellRegistryDigest(SpellRegistry.digest).write());
+            } else {
+                responseSender.sendPacket(Packets.SpellRegistrySync.BINARY_ID, SpellRegistry.encodedBinary);
+            }
+        });
+
+        ServerPlayNetworking.registerGlobalReceiver(Packets.ParticleQualityReport.ID, (server, player, handler, buf, responseSender) -> {
+            var packet = Packets.ParticleQualityReport.read(buf);
+            particleQualities.put(player.getUuid(), packet.quality());
+        });
 
         ServerPlayNetworking.registerGlobalReceiver(Packets.SpellCastSync.ID, (server, player, handler, buf, responseSender) -> {
             ServerWorld world = Iterables.tryFind(server.getWorlds(), (element) -> element == player.getWorld())
@@ -33,10 +86,11 @@ public class ServerNetwork {
             }
             var packet = Packets.SpellCastSync.read(buf);
             world.getServer().executeSync(() -> {
-                if (packet.spellId() == null) {
+                var compiled = SpellRegistry.compiled(packet.rawSpellId());
+                if (compiled == null) {
                     SpellCastSyncHelper.clearCasting(player);
                 } else {
-                    SpellHelper.startCasting(player, packet.spellId(), packet.speed(), packet.length());
+                    SpellHelper.startCasting(player, compiled, packet.speed(), packet.length());
                 }
             });
         });
@@ -49,6 +103,10 @@ public class ServerNetwork {
             }
             var packet = Packets.SpellRequest.read(buf);
             world.getServer().executeSync(() -> {
+                var compiled = SpellRegistry.compiled(packet.rawSpellId());
+                if (compiled == null) {
+                    return; // Unknown raw id
+                }
                 List<Entity> targets = new ArrayList<>();
                 for (var targetId: packet.targets()) {
                     var entity = world.getEntityById(targetId);
@@ -56,7 +114,7 @@ public class ServerNetwork {
                         targets.add(entity);
                     }
                 }
-                SpellHelper.performSpell(world, player, packet.spellId(), targets, packet.action(), packet.progress());
+                SpellHelper.performSpell(world, player, compiled, targets, packet.action(), packet.progress());
             });
         });
     }
@@ -1,19 +1,22 @@
 package net.spell_engine.particle;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
 import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
-import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.particle.ParticleEffect;
-import net.minecraft.registry.Registries;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.util.Identifier;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
+import net.spell_engine.SpellEngineMod;
 import net.spell_engine.api.spell.ParticleBatch;
 import net.spell_engine.internals.SpellHelper;
 import net.spell_engine.network.Packets;
+import net.spell_engine.network.ServerEffectsBuffer;
+import net.spell_engine.network.ServerNetwork;
+import org.joml.Vector3d;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -47,20 +50,70 @@ public class ParticleHelper {
             }
             spawns.add(new Packets.ParticleBatches.Spawn(sourceEntityId, sourceLocation, batch));
         }
-        var packet = new Packets.ParticleBatches(sourceType, spawns).write(countMultiplier);
+        var packet = new Packets.ParticleBatches(sourceType, spawns);
+        // Receivers with the same (quantized) relevance share the written packet
+        var written = new Int2ObjectArrayMap<PacketByteBuf>(4);
         if (trackedEntity instanceof ServerPlayerEntity serverPlayer) {
-            sendWrittenBatchesToPlayer(serverPlayer, packet);
+            sendRelevantBatchesToPlayer(serverPlayer, trackedEntity, packet, countMultiplier, written);
         }
-        trackers.forEach(serverPlayer -> {
-            sendWrittenBatchesToPlayer(serverPlayer, packet);
-        });
+        for (var serverPlayer: trackers) {
+            sendRelevantBatchesToPlayer(serverPlayer, trackedEntity, packet, countMultiplier, written);
+        }
+    }
+
+    private static final int RELEVANCE_STEPS = 16;
+
+    private static void sendRelevantBatchesToPlayer(ServerPlayerEntity serverPlayer, Entity trackedEntity, Packets.ParticleBatches packet,
+                                                    float countMultiplier, Int2ObjectArrayMap<PacketByteBuf> written) {
+        var relevance = relevance(serverPlayer, trackedEntity);
+        if (relevance <= 0) {
+            return;
+        }
+        var step = Math.max(1, Math.round(relevance * RELEVANCE_STEPS));
+        var buffer = written.get(step);
+        if (buffer == null) {
+            buffer = packet.write(countMultiplier * ((float) step / RELEVANCE_STEPS));
+            written.put(step, buffer);
+        }
+        sendWrittenBatchesToPlayer(serverPlayer, buffer);
+    }
+
+    /**
+     * Particle count multiplier of effects of the given source for the given receiver,
+     * based on distance, view direction and the reported particle quality of the receiver.
+     * @return `0` if the receiver is out of range
+     */
+    public static float relevance(ServerPlayerEntity receiver, Entity source) {
+        var config = SpellEngineMod.config;
+        var quality = ServerNetwork.particleQuality(receiver).countMultiplier;
+        if (receiver == source) {
+            return quality;
+        }
+        var toSource = source.getPos().subtract(receiver.getEyePos());
+        var distance = toSource.length();
+        var maxDistance = config.particle_max_distance;
+        if (maxDistance > 0 && distance > maxDistance) {
+            return 0;
+        }
+        var fullDistance = config.particle_full_count_distance;
+        if (distance <= fullDistance) {
+            return quality;
+        }
+        var multiplier = 1F;
+        if (maxDistance > fullDistance) {
+            var progress = (float) ((distance - fullDistance) / (maxDistance - fullDistance));
+            multiplier = MathHelper.lerp(progress, 1F, config.particle_min_count_multiplier);
+        }
+        // Further than ~120 degrees from the look direction, not visible even after turning a bit
+        if (toSource.dotProduct(receiver.getRotationVector()) < -0.5 * distance) {
+            multiplier *= config.particle_out_of_view_count_multiplier;
+        }
+        return multiplier * quality;
     }
 
     private static void sendWrittenBatchesToPlayer(ServerPlayerEntity serverPlayer, PacketByteBuf packet) {
         try {
-            if (ServerPlayNetworking.canSend(serverPlayer, Packets.ParticleBatches.ID)) {
-                ServerPlayNetworking.send(serverPlayer, Packets.ParticleBatches.ID, packet);
-            }
+            ServerEffectsBuffer.particles(serverPlayer, packet);
         } catch (Exception e){
             e.printStackTrace();
         }
@@ -84,31 +137,63 @@ public class ParticleHelper {
     }
 
     public static void play(World world, Vec3d origin, float width, float yaw, float pitch, ParticleBatch batch) {
+        play(world, origin, width, yaw, pitch, batch, 1F, Integer.MAX_VALUE);
+    }
+
+    public static int play(World world, Entity entity, float yaw, float pitch, ParticleBatch batch, float countMultiplier, int limit) {
+        return play(world, origin(entity, batch.origin), entity.getWidth(), yaw, pitch, batch, countMultiplier, limit);
+    }
+
+    /**
+     * @param countMultiplier scales the particle count of the batch
+     * @param limit maximum number of particles to spawn
+     * @return number of particles spawned
+     */
+    public static int play(World world, Vec3d origin, float width, float yaw, float pitch, ParticleBatch batch, float countMultiplier, int limit) {
+        int spawned = 0;
         try {
-            var id = new Identifier(batch.particle_id);
-            var particle = (ParticleEffect) Registries.PARTICLE_TYPE.get(id);
-            var count = batch.count;
+            var particle = batch.particleEffect();
+            if (particle == null) {
+                return 0;
+            }
+            var count = batch.count * countMultiplier;
             var dynamicallyOffset = requiresDynamicOffset(batch);
-            var defaultOrigin = origin.add(offset(width, batch.extent, batch.shape, batch.rotation, yaw, pitch));
-            if (batch.count < 1) {
-                count = rng.nextFloat() < batch.count ? 1 : 0;
+            var offset = new Vector3d();
+            var direction = new Vector3d();
+            offset(width, batch.extent, batch.shape, batch.rotation, yaw, pitch, offset);
+            if (count < 1) {
+                count = rng.nextFloat() < count ? 1 : 0;
             }
-            for(int i = 0; i < count; ++i) {
-                var direction = direction(batch, yaw, pitch);
-                var particleSpecificOrigin = dynamicallyOffset ? origin.add(offset(width, batch.extent, batch.shape, batch.rotation, yaw, pitch)) : defaultOrigin;
+            for(int i = 0; i < count && i < limit; ++i) {
+                direction(batch, yaw, pitch, direction);
+                if (dynamicallyOffset) {
+                    offset(width, batch.extent, batch.shape, batch.rotation, yaw, pitch, offset);
+                }
                 world.addParticle(particle, true,
-                        particleSpecificOrigin.x, particleSpecificOrigin.y, particleSpecificOrigin.z,
+                        origin.x + offset.x, origin.y + offset.y, origin.z + offset.z,
                         direction.x, direction.y, direction.z);
+                spawned += 1;
             }
         } catch (Exception e) {
             System.err.println("Failed to play particle batch - " + e.getMessage());
             e.printStackTrace();
         }
+        return spawned;
     }
 
     public static List<SpawnInstruction> convertToInstructions(World world, float pitch, float yaw, Packets.ParticleBatches packet) {
-        var instructions = new ArrayList<SpawnInstruction>();
+        var buffer = new ParticleSpawnBuffer();
+        convertToInstructions(world, pitch, yaw, packet, buffer);
+        return buffer.toInstructions();
+    }
+
+    /**
+     * Appends the particles of the packet to the given buffer, instead of allocating an instruction per particle.
+     */
+    public static void convertToInstructions(World world, float pitch, float yaw, Packets.ParticleBatches packet, ParticleSpawnBuffer buffer) {
         var sourceType = packet.sourceType();
+        var offset = new Vector3d();
+        var direction = new Vector3d();
         for(var spawn: packet.spawns()) {
             var batch = spawn.batch();
             var origin = Vec3d.ZERO;
@@ -123,23 +208,26 @@ public class ParticleHelper {
                 }
             }
 
-            var id = new Identifier(batch.particle_id);
-            var particle = (ParticleEffect) Registries.PARTICLE_TYPE.get(id);
+            var particle = batch.particleEffect();
+            if (particle == null) {
+                continue;
+            }
             var count = batch.count;
             var dynamicallyOffset = requiresDynamicOffset(batch);
-            var defaultOrigin = origin.add(offset(width, batch.extent, batch.shape, batch.rotation, yaw, pitch));
+            offset(width, batch.extent, batch.shape, batch.rotation, yaw, pitch, offset);
             if (batch.count < 1) {
                 count = rng.nextFloat() < batch.count ? 1 : 0;
             }
             for(int i = 0; i < count; ++i) {
-                var direction = direction(batch, yaw, pitch);
-                var particleSpecificOrigin = dynamicallyOffset ? origin.add(offset(width, batch.extent, batch.shape, batch.rotation, yaw, pitch)) : defaultOrigin;
-                instructions.add(new SpawnInstruction(particle,
-                        particleSpecificOrigin.x, particleSpecificOrigin.y, particleSpecificOrigin.z,
-                        direction.x, direction.y, direction.z));
+                direction(batch, yaw, pitch, direction);
+                if (dynamicallyOffset) {
+                    offset(width, batch.extent, batch.shape, batch.rotation, yaw, pitch, offset);
+                }
+                buffer.add(particle,
+                        origin.x + offset.x, origin.y + offset.y, origin.z + offset.z,
+                        direction.x, direction.y, direction.z);
             }
         }
-        return instructions;
     }
 
     public record SpawnInstruction(ParticleEffect particle,
@@ -190,39 +278,43 @@ public class ParticleHelper {
         return false;
     }
 
-    private static Vec3d offset(float width, float extent, ParticleBatch.Shape shape, ParticleBatch.Rotation rotation, float yaw, float pitch) {
-        var offset = Vec3d.ZERO;
+    /**
+     * Writes the spawn offset into `out`, so vectors are reused across the particles of a batch.
+     */
+    private static void offset(float width, float extent, ParticleBatch.Shape shape, ParticleBatch.Rotation rotation, float yaw, float pitch, Vector3d out) {
+        out.set(0, 0, 0);
         switch (shape) {
             case CIRCLE, CONE, SPHERE -> {
-                return offset;
+                return;
             }
             case PIPE -> {
                 var size = width + extent;
                 var angle = (float) Math.toRadians(rng.nextFloat() * 360F);
-                offset = new Vec3d(size,0,0).rotateY(angle);
+                rotateY(out.set(size, 0, 0), angle);
             }
             case PILLAR -> {
                 var size = width + extent;
                 var x = randomInRange(0, size);
                 var angle = (float) Math.toRadians(rng.nextFloat() * 360F);
-                offset = new Vec3d(x,0,0).rotateY(angle);
+                rotateY(out.set(x, 0, 0), angle);
             }
         }
 
         if (rotation != null) {
             switch (rotation) {
                 case LOOK -> {
-                    offset = offset
-                            .rotateX((float) Math.toRadians(-1 * (pitch + 90)))
-                            .rotateY((float) Math.toRadians(-yaw));
+                    rotateX(out, (float) Math.toRadians(-1 * (pitch + 90)));
+                    rotateY(out, (float) Math.toRadians(-yaw));
                 }
             }
         }
-        return offset;
     }
 
-    private static Vec3d direction(ParticleBatch batch, float yaw, float pitch) {
-        var direction = Vec3d.ZERO;
+    /**
+     * Writes the particle velocity into `out`, so vectors are reused across the particles of a batch.
+     */
+    private static void direction(ParticleBatch batch, float yaw, float pitch, Vector3d out) {
+        out.set(0, 0, 0);
         float normalizedYaw = yaw % 360;
         float normalizedPitch = pitch % 360;
 
@@ -230,21 +322,21 @@ public class ParticleHelper {
         float rotateAroundY = 0;
         switch (batch.shape) {
             case CONE -> {
-                direction = new Vec3d(0, randomInRange(batch.min_speed, batch.max_speed), 0);
+                out.set(0, randomInRange(batch.min_speed, batch.max_speed), 0);
                 rotateAroundX += rng.nextFloat() * batch.angle - (batch.angle * 0.5F);
                 rotateAroundY += rng.nextFloat() * batch.angle - (batch.angle * 0.5F);
             }
             case CIRCLE -> {
-                direction = new Vec3d(0, 0, randomInRange(batch.min_speed, batch.max_speed))
-                        .rotateY((float) Math.toRadians(rng.nextFloat() * 360F));
+                out.set(0, 0, randomInRange(batch.min_speed, batch.max_speed));
+                rotateY(out, (float) Math.toRadians(rng.nextFloat() * 360F));
             }
             case PILLAR, PIPE -> {
-                direction = new Vec3d(0, randomInRange(batch.min_speed, batch.max_speed), 0);
+                out.set(0, randomInRange(batch.min_speed, batch.max_speed), 0);
             }
             case SPHERE -> {
-                direction = new Vec3d(randomInRange(batch.min_speed, batch.max_speed), 0, 0)
-                        .rotateZ((float) Math.toRadians(rng.nextFloat() * 360F))
-                        .rotateY((float) Math.toRadians(rng.nextFloat() * 360F));
+                out.set(randomInRange(batch.min_speed, batch.max_speed), 0, 0);
+                rotateZ(out, (float) Math.toRadians(rng.nextFloat() * 360F));
+                rotateY(out, (float) Math.toRadians(rng.nextFloat() * 360F));
             }
         }
         if (batch.rotation != null) {
@@ -254,12 +346,29 @@ public class ParticleHelper {
                     rotateAroundY += normalizedYaw;
                 }
             }
-            direction = direction
-                    .rotateX((float) Math.toRadians(rotateAroundX) * (-1F))
-                    .rotateY((float) Math.toRadians(rotateAroundY) * (-1F));
+            rotateX(out, (float) Math.toRadians(rotateAroundX) * (-1F));
+            rotateY(out, (float) Math.toRadians(rotateAroundY) * (-1F));
         }
+    }
+
+    // MARK: In place rotations, same as `Vec3d.rotateX/Y/Z`
+
+    private static void rotateX(Vector3d vector, float angle) {
+        var cos = MathHelper.cos(angle);
+        var sin = MathHelper.sin(angle);
+        vector.set(vector.x, vector.y * cos + vector.z * sin, vector.z * cos - vector.y * sin);
+    }
+
+    private static void rotateY(Vector3d vector, float angle) {
+        var cos = MathHelper.cos(angle);
+        var sin = MathHelper.sin(angle);
+        vector.set(vector.x * cos + vector.z * sin, vector.y, vector.z * cos - vector.x * sin);
+    }
 
-        return direction;
+    private static void rotateZ(Vector3d vector, float angle) {
+        var cos = MathHelper.cos(angle);
+        var sin = MathHelper.sin(angle);
+        vector.set(vector.x * cos + vector.y * sin, vector.y * cos - vector.x * sin, vector.z);
     }
 
     private static float randomInRange(float min, float max) {
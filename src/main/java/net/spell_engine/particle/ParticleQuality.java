@@ -0,0 +1,21 @@
+package net.spell_engine.particle;
+
+/**
+ * Particle quality tier reported by clients, the server scales the particle count of batches sent to them.
+ */
+public enum ParticleQuality {
+    FULL(1F),
+    REDUCED(0.5F),
+    MINIMAL(0.2F);
+
+    public final float countMultiplier;
+
+    ParticleQuality(float countMultiplier) {
+        this.countMultiplier = countMultiplier;
+    }
+
+    public static ParticleQuality from(int ordinal) {
+        var values = values();
+        return (ordinal >= 0 && ordinal < values.length) ? values[ordinal] : FULL;
+    }
+}
@@ -0,0 +1,157 @@
+package net.spell_engine.particle;
+
+import net.minecraft.particle.ParticleEffect;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Particles to spawn, stored as parallel arrays (instead of an object per particle).
+ *
+ * Buffers are filled on the network thread, submitted, then spawned together once per frame
+ * on the render thread, within a particle budget. Spawned buffers are returned to a pool.
+ * While no frames are rendered (for example, minimized window), submissions over the pending limit are dropped.
+ */
+public class ParticleSpawnBuffer {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_POOLED = 16;
+    /// Same as the per sheet limit of the vanilla particle manager
+    private static final int MAX_PENDING_PARTICLES = 16384;
+
+    private ParticleEffect[] particles = new ParticleEffect[INITIAL_CAPACITY];
+    /// x, y, z of each particle
+    private double[] positions = new double[INITIAL_CAPACITY * 3];
+    /// Velocity x, y, z of each particle
+    private double[] velocities = new double[INITIAL_CAPACITY * 3];
+    private int size = 0;
+
+    public void add(ParticleEffect particle, double x, double y, double z, double velocityX, double velocityY, double velocityZ) {
+        if (size == particles.length) {
+            var capacity = particles.length * 2;
+            particles = Arrays.copyOf(particles, capacity);
+            positions = Arrays.copyOf(positions, capacity * 3);
+            velocities = Arrays.copyOf(velocities, capacity * 3);
+        }
+        var offset = size * 3;
+        particles[size] = particle;
+        positions[offset] = x;
+        positions[offset + 1] = y;
+        positions[offset + 2] = z;
+        velocities[offset] = velocityX;
+        velocities[offset + 1] = velocityY;
+        velocities[offset + 2] = velocityZ;
+        size += 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(particles, 0, size, null);
+        size = 0;
+    }
+
+    public List<ParticleHelper.SpawnInstruction> toInstructions() {
+        var instructions = new ArrayList<ParticleHelper.SpawnInstruction>(size);
+        for (int i = 0; i < size; ++i) {
+            var offset = i * 3;
+            instructions.add(new ParticleHelper.SpawnInstruction(particles[i],
+                    positions[offset], positions[offset + 1], positions[offset + 2],
+                    velocities[offset], velocities[offset + 1], velocities[offset + 2]));
+        }
+        return instructions;
+    }
+
+    // MARK: Pool
+
+    private static final ConcurrentLinkedQueue<ParticleSpawnBuffer> pool = new ConcurrentLinkedQueue<>();
+    private static final ConcurrentLinkedQueue<ParticleSpawnBuffer> pending = new ConcurrentLinkedQueue<>();
+    /// Number of particles in `pending`
+    private static final AtomicInteger pendingParticles = new AtomicInteger();
+
+    public static ParticleSpawnBuffer obtain() {
+        var buffer = pool.poll();
+        return buffer != null ? buffer : new ParticleSpawnBuffer();
+    }
+
+    private static void release(ParticleSpawnBuffer buffer) {
+        buffer.clear();
+        if (pool.size() < MAX_POOLED) {
+            pool.add(buffer);
+        }
+    }
+
+    /**
+     * Queues the buffer to be spawned with the next `spawnPending` call.
+     * The buffer is dropped if the pending particles would exceed the limit.
+     */
+    public static void submit(ParticleSpawnBuffer buffer) {
+        var size = buffer.size;
+        if (size == 0 || pendingParticles.addAndGet(size) > MAX_PENDING_PARTICLES) {
+            if (size > 0) {
+                pendingParticles.addAndGet(-size);
+            }
+            release(buffer);
+            return;
+        }
+        pending.add(buffer);
+    }
+
+    /**
+     * Spawns all submitted particles in one pass.
+     * If they exceed the budget, particles are evenly thinned out (rather than cutting off the last batches).
+     * @param budget maximum number of particles to spawn, `0` or less for no limit
+     */
+    public static void spawnPending(@Nullable World world, int budget) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        var buffers = new ArrayList<ParticleSpawnBuffer>();
+        int total = 0;
+        ParticleSpawnBuffer polled;
+        while ((polled = pending.poll()) != null) {
+            buffers.add(polled);
+            total += polled.size;
+        }
+        pendingParticles.addAndGet(-total);
+        if (world != null) {
+            var ratio = (budget > 0 && total > budget) ? ((double) budget) / total : 1.0;
+            var accumulator = 0.0;
+            int failed = 0;
+            Exception failure = null;
+            for (var buffer: buffers) {
+                for (int i = 0; i < buffer.size; ++i) {
+                    accumulator += ratio;
+                    if (accumulator < 1) {
+                        continue;
+                    }
+                    accumulator -= 1;
+                    var offset = i * 3;
+                    try {
+                        world.addParticle(buffer.particles[i], true,
+                                buffer.positions[offset], buffer.positions[offset + 1], buffer.positions[offset + 2],
+                                buffer.velocities[offset], buffer.velocities[offset + 1], buffer.velocities[offset + 2]);
+                    } catch (Exception e) {
+                        failed += 1;
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+            }
+            if (failure != null) {
+                System.err.println("Failed to spawn " + failed + " buffered particles - " + failure.getMessage());
+                failure.printStackTrace();
+            }
+        }
+        for (var buffer: buffers) {
+            release(buffer);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package net.spell_engine.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.ShapeContext;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.util.shape.VoxelShapes;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Line of sight queries (block collision shapes only, fluids ignored),
+ * equivalent to a `COLLIDER` raycast with `FluidHandling.NONE`.
+ *
+ * Results are memoized for the current world tick, keyed by start and end block.
+ * Batch queries from a common origin resolve the collision shape of each visited block once,
+ * so the voxels shared by the rays (typically around the origin) are looked up once.
+ */
+public class LineOfSight {
+    private static final int MAX_CACHED_RESULTS = 4096;
+
+    // MARK: Metrics
+
+    private static final LongAdder queries = new LongAdder();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder traces = new LongAdder();
+    private static final LongAdder sharedVoxels = new LongAdder();
+    private static final LongAdder nanosSpent = new LongAdder();
+
+    public record Metrics(long queries, long cacheHits, long traces, long sharedVoxels, long nanosSpent) {
+        public double hitRate() {
+            return queries > 0 ? ((double) cacheHits) / queries : 0;
+        }
+    }
+
+    public static Metrics metrics() {
+        return new Metrics(queries.sum(), cacheHits.sum(), traces.sum(), sharedVoxels.sum(), nanosSpent.sum());
+    }
+
+    public static void resetMetrics() {
+        queries.reset();
+        cacheHits.reset();
+        traces.reset();
+        sharedVoxels.reset();
+        nanosSpent.reset();
+    }
+
+    // MARK: Queries
+
+    /**
+     * Returns true if no block collision shape is between the two points.
+     */
+    public static boolean isClear(Entity viewer, Vec3d start, Vec3d end) {
+        return isClear(viewer, start, List.of(end))[0];
+    }
+
+    /**
+     * Returns true if any of the end points is visible from the start.
+     * Ends are checked in order, remaining ones are skipped after the first clear one.
+     */
+    public static boolean isAnyClear(Entity viewer, Vec3d start, Vec3d... ends) {
+        var startedAt = System.nanoTime();
+        var cache = cache(viewer.getWorld());
+        var startBlock = blockKey(start);
+        Long2ObjectOpenHashMap<VoxelShape> shapes = null;
+        try {
+            for (var end: ends) {
+                queries.increment();
+                var key = new Key(startBlock, blockKey(end));
+                var cached = cache.results.get(key);
+                if (cached != null) {
+                    cacheHits.increment();
+                    if (cached) {
+                        return true;
+                    }
+                    continue;
+                }
+                if (shapes == null) {
+                    shapes = new Long2ObjectOpenHashMap<>();
+                }
+                var clear = trace(viewer, start, end, shapes);
+                cache.results.put(key, clear);
+                if (clear) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            nanosSpent.add(System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * Batch query from a common start point.
+     * @return visibility of each end point, in the same order
+     */
+    public static boolean[] isClear(Entity viewer, Vec3d start, List<Vec3d> ends) {
+        var startedAt = System.nanoTime();
+        var cache = cache(viewer.getWorld());
+        var startBlock = blockKey(start);
+        var results = new boolean[ends.size()];
+        Long2ObjectOpenHashMap<VoxelShape> shapes = null;
+        for (int i = 0; i < ends.size(); ++i) {
+            queries.increment();
+            var end = ends.get(i);
+            var key = new Key(startBlock, blockKey(end));
+            var cached = cache.results.get(key);
+            if (cached != null) {
+                cacheHits.increment();
+                results[i] = cached;
+                continue;
+            }
+            if (shapes == null) {
+                shapes = new Long2ObjectOpenHashMap<>();
+            }
+            var clear = trace(viewer, start, end, shapes);
+            cache.results.put(key, clear);
+            results[i] = clear;
+        }
+        nanosSpent.add(System.nanoTime() - startedAt);
+        return results;
+    }
+
+    /**
+     * Walks the blocks between the two points, collision shapes are memoized in `shapes` across the batch.
+     */
+    private static boolean trace(Entity viewer, Vec3d start, Vec3d end, Long2ObjectOpenHashMap<VoxelShape> shapes) {
+        traces.increment();
+        var world = viewer.getWorld();
+        var shapeContext = ShapeContext.of(viewer);
+        Boolean blocked = BlockView.raycast(start, end, shapes, (visited, pos) -> {
+            var posKey = pos.asLong();
+            var shape = visited.get(posKey);
+            if (shape == null) {
+                shape = world.getBlockState(pos).getCollisionShape(world, pos, shapeContext);
+                visited.put(posKey, shape);
+            } else {
+                sharedVoxels.increment();
+            }
+            if (shape.isEmpty()) {
+                return null; // Continue walking
+            }
+            if (shape == VoxelShapes.fullCube()) {
+                return true; // The segment intersects this block, so it hits a full cube
+            }
+            return shape.raycast(start, end, pos) != null ? true : null;
+        }, visited -> false);
+        return !blocked;
+    }
+
+    // MARK: Cache
+
+    private record Key(long start, long end) { }
+
+    private static class Cache {
+        WeakReference<World> world = new WeakReference<>(null);
+        long time = Long.MIN_VALUE;
+        final Map<Key, Boolean> results = new LinkedHashMap<>(256, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                return size() > MAX_CACHED_RESULTS;
+            }
+        };
+    }
+
+    // Per thread, as the client and the integrated server query independently
+    private static final ThreadLocal<Cache> caches = ThreadLocal.withInitial(Cache::new);
+
+    private static Cache cache(@Nullable World world) {
+        var cache = caches.get();
+        var time = world != null ? world.getTime() : 0;
+        if (cache.world.get() != world || cache.time != time) {
+            cache.world = new WeakReference<>(world);
+            cache.time = time;
+            cache.results.clear();
+        }
+        return cache;
+    }
+
+    private static long blockKey(Vec3d position) {
+        return BlockPos.asLong(MathHelper.floor(position.x), MathHelper.floor(position.y), MathHelper.floor(position.z));
+    }
+}
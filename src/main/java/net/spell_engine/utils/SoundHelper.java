@@ -4,12 +4,14 @@ import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.registry.Registries;
 import net.minecraft.registry.Registry;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.sound.SoundCategory;
 import net.minecraft.sound.SoundEvent;
 import net.minecraft.util.Identifier;
 import net.minecraft.world.World;
 import net.spell_engine.SpellEngineMod;
 import net.spell_engine.api.spell.Sound;
+import net.spell_engine.network.ServerEffectsBuffer;
 import net.spell_engine.spellbinding.SpellBindingScreenHandler;
 
 import java.util.List;
@@ -60,7 +62,10 @@ public class SoundHelper {
             return;
         }
         try {
-            var soundEvent = Registries.SOUND_EVENT.get(new Identifier(sound.id()));
+            var soundEvent = sound.soundEvent();
+            if (soundEvent == null) {
+                return;
+            }
             playSoundEvent(world, entity, soundEvent, sound.volume(), sound.randomizedPitch());
         } catch (Exception e) {
             System.err.println("Failed to play sound: " + sound.id());
@@ -73,6 +78,10 @@ public class SoundHelper {
     }
 
     public static void playSoundEvent(World world, Entity entity, SoundEvent soundEvent, float volume, float pitch) {
+        if (world instanceof ServerWorld serverWorld) {
+            ServerEffectsBuffer.playSound(serverWorld, entity.getX(), entity.getY(), entity.getZ(), soundEvent, volume, pitch);
+            return;
+        }
         world.playSound(
                 (PlayerEntity)null,
                 entity.getX(),
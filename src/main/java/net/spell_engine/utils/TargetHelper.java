@@ -1,6 +1,8 @@
 package net.spell_engine.utils;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.Tameable;
 import net.minecraft.entity.decoration.AbstractDecorationEntity;
@@ -10,6 +12,7 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.projectile.ProjectileUtil;
 import net.minecraft.registry.Registries;
 import net.minecraft.scoreboard.AbstractTeam;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.hit.HitResult;
 import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Vec3d;
@@ -17,14 +20,19 @@ import net.minecraft.world.RaycastContext;
 import net.minecraft.world.World;
 import net.spell_engine.SpellEngineMod;
 import net.spell_engine.api.spell.Spell;
+import net.spell_engine.config.ServerConfig;
 import net.spell_engine.internals.Beam;
 import net.spell_engine.internals.casting.SpellCasterClient;
 import net.spell_engine.internals.SpellHelper;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
 
@@ -52,6 +60,18 @@ public class TargetHelper {
         }
         var casterTeam = attacker.getScoreboardTeam();
         var targetTeam = target.getScoreboardTeam();
+        var cache = relationCache(attacker.getWorld());
+        var key = (((long) attacker.getId()) << 32) | (target.getId() & 0xFFFFFFFFL);
+        var cached = cache.relations.get(key);
+        if (cached != null && cached.casterTeam() == casterTeam && cached.targetTeam() == targetTeam) {
+            return cached.relation();
+        }
+        var relation = resolveRelation(attacker, target, casterTeam, targetTeam);
+        cache.relations.put(key, new CachedRelation(relation, casterTeam, targetTeam));
+        return relation;
+    }
+
+    private static Relation resolveRelation(LivingEntity attacker, Entity target, @Nullable AbstractTeam casterTeam, @Nullable AbstractTeam targetTeam) {
         if (target instanceof Tameable tameable) {
             var owner = tameable.getOwner();
             if (owner != null) {
@@ -63,8 +83,7 @@ public class TargetHelper {
         }
         var config = SpellEngineMod.config;
         if (casterTeam == null || targetTeam == null) {
-            var id = Registries.ENTITY_TYPE.getId(target.getType());
-            var mappedRelation = config.player_relations.get(id.toString());
+            var mappedRelation = relationTable(config).get(target.getType());
             if (mappedRelation != null) {
                 return mappedRelation;
             }
@@ -80,6 +99,49 @@ public class TargetHelper {
         }
     }
 
+    /// `player_relations` keyed by entity type, compiled for the given config instance and relation map
+    private record RelationTable(@Nullable ServerConfig config, @Nullable Map<String, Relation> source,
+                                 Map<EntityType<?>, Relation> relations) { }
+    // Replaced as a whole, so readers of other threads see a complete table
+    private static volatile RelationTable relationTable = new RelationTable(null, null, Map.of());
+
+    private static Map<EntityType<?>, Relation> relationTable(ServerConfig config) {
+        var current = relationTable;
+        if (config != current.config() || config.player_relations != current.source()) {
+            var table = new IdentityHashMap<EntityType<?>, Relation>();
+            for (var entry: config.player_relations.entrySet()) {
+                var id = Identifier.tryParse(entry.getKey());
+                if (id != null && Registries.ENTITY_TYPE.containsId(id)) {
+                    table.put(Registries.ENTITY_TYPE.get(id), entry.getValue());
+                }
+            }
+            current = new RelationTable(config, config.player_relations, Collections.unmodifiableMap(table));
+            relationTable = current;
+        }
+        return current.relations();
+    }
+
+    /// Relation resolved earlier in the same tick, valid while the teams of both sides are unchanged
+    private record CachedRelation(Relation relation, @Nullable AbstractTeam casterTeam, @Nullable AbstractTeam targetTeam) { }
+    private static class RelationCache {
+        WeakReference<World> world = new WeakReference<>(null);
+        long time = Long.MIN_VALUE;
+        final Long2ObjectOpenHashMap<CachedRelation> relations = new Long2ObjectOpenHashMap<>();
+    }
+    // Per thread, as the client and the integrated server query independently
+    private static final ThreadLocal<RelationCache> relationCaches = ThreadLocal.withInitial(RelationCache::new);
+
+    private static RelationCache relationCache(World world) {
+        var cache = relationCaches.get();
+        var time = world.getTime();
+        if (cache.world.get() != world || cache.time != time) {
+            cache.world = new WeakReference<>(world);
+            cache.time = time;
+            cache.relations.clear();
+        }
+        return cache;
+    }
+
     // Make sure this complies with comment in `ServerConfig`
     private static final boolean[][] TABLE_OF_ULTIMATE_JUSTICE = {
             // FRIENDLY SEMI_FRIENDLY   NEUTRAL HOSTILE MIXED
@@ -221,6 +283,15 @@ public class TargetHelper {
         return targetsFromArea(caster, origin, range, area, predicate);
     }
 
+    private record AreaCandidate(Entity entity, Vec3d center, Vec3d distanceVector, double squaredDistance) { }
+
+    /**
+     * Staged area targeting, cheapest checks first:
+     * 1. sphere and cone rejection (squared distances, dot products)
+     * 2. custom predicate (relevance), so non-targets don't take slots of the cap
+     * 3. capping to the closest candidates
+     * 4. line of sight raycasts, cached per tick
+     */
     public static List<Entity> targetsFromArea(Entity centerEntity, Vec3d origin, float range, Spell.Release.Target.Area area, @Nullable Predicate<Entity> predicate) {
         var horizontal = range * area.horizontal_range_multiplier;
         var vertical = range * area.vertical_range_multiplier;
@@ -231,35 +302,100 @@ public class TargetHelper {
         var squaredDistance = range * range;
         var look = centerEntity.getRotationVector();
         var angle = area.angle_degrees / 2F;
-        return centerEntity.getWorld().getOtherEntities(centerEntity, box, (target) -> {
+        var cone = new Cone(look, angle);
+
+        // Stage 1
+        var candidates = new ArrayList<AreaCandidate>();
+        centerEntity.getWorld().getOtherEntities(centerEntity, box, (target) -> {
+            if (target.isSpectator() || !target.canHit()) {
+                return false;
+            }
             var targetCenter = target.getPos().add(0, target.getHeight() / 2F, 0);
+            var centerDistance = targetCenter.squaredDistanceTo(origin);
+            if (centerDistance > squaredDistance) {
+                return false;
+            }
             var distanceVector = VectorHelper.distanceVector(origin, target.getBoundingBox());
-            return !target.isSpectator()
-                    && target.canHit()
-                    && (predicate == null || predicate.test(target))
-                    && targetCenter.squaredDistanceTo(origin) <= squaredDistance
-                    && ((angle <= 0)
-                        || (VectorHelper.angleBetween(look, targetCenter.subtract(origin)) <= angle)
-                        || (VectorHelper.angleBetween(look, distanceVector) <= angle)
-                        )
-                    && (raycastObstacleFree(centerEntity, origin, targetCenter)
-                        || raycastObstacleFree(centerEntity, origin, origin.add(distanceVector))
-                        )
-                    ;
+            if (!cone.contains(targetCenter.subtract(origin)) && !cone.contains(distanceVector)) {
+                return false;
+            }
+            candidates.add(new AreaCandidate(target, targetCenter, distanceVector, centerDistance));
+            return false; // Collected above
         });
+
+        // Stage 2
+        if (predicate != null) {
+            candidates.removeIf(candidate -> !predicate.test(candidate.entity()));
+        }
+
+        // Stage 3
+        var limit = SpellEngineMod.config != null ? SpellEngineMod.config.area_target_candidate_limit : 0;
+        if (limit > 0 && candidates.size() > limit) {
+            candidates.sort(Comparator.comparingDouble(AreaCandidate::squaredDistance));
+            candidates.subList(limit, candidates.size()).clear();
+        }
+
+        // Stage 4, batched so rays share block lookups
+        var centers = new ArrayList<Vec3d>(candidates.size());
+        for (var candidate: candidates) {
+            centers.add(candidate.center());
+        }
+        var centerVisible = LineOfSight.isClear(centerEntity, origin, centers);
+        var closestPoints = new ArrayList<Vec3d>();
+        for (int i = 0; i < candidates.size(); ++i) {
+            if (!centerVisible[i]) {
+                closestPoints.add(origin.add(candidates.get(i).distanceVector()));
+            }
+        }
+        var closestVisible = LineOfSight.isClear(centerEntity, origin, closestPoints);
+        var targets = new ArrayList<Entity>(candidates.size());
+        int fallbackIndex = 0;
+        for (int i = 0; i < candidates.size(); ++i) {
+            if (centerVisible[i] || closestVisible[fallbackIndex++]) {
+                targets.add(candidates.get(i).entity());
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Cone test without trigonometry per target.
+     * Zero length vectors are considered inside, matching `VectorHelper.angleBetween`.
+     */
+    private static class Cone {
+        private final Vec3d axis;
+        private final double axisLength;
+        private final double cosine;
+        private final boolean unbounded;
+
+        Cone(Vec3d axis, float halfAngleDegrees) {
+            this.axis = axis;
+            this.axisLength = axis.length();
+            this.cosine = Math.cos(Math.toRadians(halfAngleDegrees));
+            this.unbounded = halfAngleDegrees <= 0 || halfAngleDegrees >= 180;
+        }
+
+        boolean contains(Vec3d vector) {
+            if (unbounded) {
+                return true;
+            }
+            var length = vector.length();
+            if (length == 0 || axisLength == 0) {
+                return true;
+            }
+            return axis.dotProduct(vector) >= cosine * axisLength * length;
+        }
     }
 
     public static boolean isInLineOfSight(Entity attacker, Entity target) {
         var origin = attacker.getEyePos();
         var targetCenter = target.getPos().add(0, target.getHeight() / 2F, 0);
         var distanceVector = VectorHelper.distanceVector(origin, target.getBoundingBox());
-        return raycastObstacleFree(attacker, origin, targetCenter)
-                || raycastObstacleFree(attacker, origin, origin.add(distanceVector));
+        return LineOfSight.isAnyClear(attacker, origin, targetCenter, origin.add(distanceVector));
     }
 
     private static boolean raycastObstacleFree(Entity entity, Vec3d start, Vec3d end) {
-        var hit = entity.getWorld().raycast(new RaycastContext(start, end, RaycastContext.ShapeType.COLLIDER, RaycastContext.FluidHandling.NONE, entity));
-        return hit.getType() != HitResult.Type.BLOCK;
+        return LineOfSight.isClear(entity, start, end);
     }
 
     public static boolean isTargetedByPlayer(Entity entity, PlayerEntity player) {